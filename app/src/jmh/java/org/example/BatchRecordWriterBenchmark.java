@@ -0,0 +1,115 @@
+package org.example;
+
+import java.io.Reader;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * H2のテーブルへの追加のベンチマーク. {@link BatchRecordWriter}とMapper.xmlのinsertRecordで
+ * 1件ずつ追加する場合、同じ文をBATCHのSqlSessionで実行する場合を比較する.
+ * 1回の操作でrows件を追加する.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchRecordWriterBenchmark {
+  // 任意のテーブルに1行を追加する文
+  private static final String INSERT_RECORD = "org.example.Mapper.insertRecord";
+
+  private static final String TABLE = "T_BENCHMARK_EXPORT";
+  private static final List<String> COLUMNS = List.of("ID", "ITEM1", "ITEM2", "ITEM3");
+
+  // 1回の操作で追加する件数
+  @Param({ "10000" })
+  int rows;
+
+  // BatchRecordWriterのコミットする件数
+  @Param({ "100", "1000" })
+  int batchSize;
+
+  private SqlSessionFactory sqlSessionFactory;
+  private List<Map<String, String>> records;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    execute("CREATE TABLE IF NOT EXISTS " + TABLE
+        + " (ID VARCHAR(10) PRIMARY KEY, ITEM1 VARCHAR(10), ITEM2 VARCHAR(10), ITEM3 VARCHAR(10))");
+
+    records = new ArrayList<>();
+    for (int row = 0; row < rows; row++) {
+      records.add(Map.of("ID", String.valueOf(row), "ITEM1", "A" + row, "ITEM2", "B" + row, "ITEM3", "C" + row));
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void truncate() throws Exception {
+    execute("TRUNCATE TABLE " + TABLE);
+  }
+
+  /**
+   * 1件ずつINSERTを実行し、最後にコミットする
+   */
+  @Benchmark
+  public int singleInsert() {
+    return insert(ExecutorType.SIMPLE);
+  }
+
+  /**
+   * 動的SQLの文をBATCHのSqlSessionで実行し、最後にコミットする
+   */
+  @Benchmark
+  public int mapperBatchInsert() {
+    return insert(ExecutorType.BATCH);
+  }
+
+  @Benchmark
+  public long batchInsert() {
+    try (BatchRecordWriter writer = new BatchRecordWriter(sqlSessionFactory, TABLE, COLUMNS, batchSize)) {
+      return writer.writeAll(records.stream());
+    }
+  }
+
+  private int insert(ExecutorType executorType) {
+    int count = 0;
+    try (SqlSession session = sqlSessionFactory.openSession(executorType, false)) {
+      for (Map<String, String> record : records) {
+        List<String> values = new ArrayList<>();
+        for (String column : COLUMNS) {
+          values.add(record.get(column));
+        }
+        session.insert(INSERT_RECORD, Map.of("table", TABLE, "columns", COLUMNS, "values", values));
+        count++;
+      }
+      session.commit();
+    }
+    return count;
+  }
+
+  private void execute(String sql) throws Exception {
+    try (SqlSession session = sqlSessionFactory.openSession(true);
+        Statement statement = session.getConnection().createStatement()) {
+      statement.execute(sql);
+    }
+  }
+}
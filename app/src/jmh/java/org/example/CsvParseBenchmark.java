@@ -0,0 +1,118 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 生成したCSVファイルを入力とした{@link CsvParse}の処理全体のベンチマーク.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvParseBenchmark {
+  // CSVの列数. 列数の半分を項目、残りを状態列とする
+  @Param({ "10", "100" })
+  int width;
+
+  // CSVの行数
+  @Param({ "10000", "100000" })
+  int rows;
+
+  // 状態列が変換の条件に一致する割合（0〜100）
+  @Param({ "50" })
+  int hitPercent;
+
+  private Path directory;
+  private Path input;
+  private Path output;
+  private CsvParse.Config config;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("csv-parse-benchmark");
+    input = directory.resolve("input.csv");
+    output = directory.resolve("output.csv");
+
+    int items = width / 2;
+    List<CsvParse.Config.ValuePair> valuePairs = new ArrayList<>();
+    List<String> headers = new ArrayList<>();
+    for (int i = 1; i <= items; i++) {
+      CsvParse.Config.ValuePair valuePair = new CsvParse.Config.ValuePair();
+      valuePair.setItem("ITEM" + i);
+      valuePair.setState("STAT-ITEM" + i);
+      valuePairs.add(valuePair);
+      headers.add("ITEM" + i);
+    }
+    for (int i = 1; i <= items; i++) {
+      headers.add("STAT-ITEM" + i);
+    }
+    config = new CsvParse().new Config();
+    config.setValuePairs(valuePairs);
+    CsvParse.Config.Condition condition = new CsvParse.Config.Condition();
+    condition.setPattern("1|3");
+    condition.setReplacement("@");
+    config.setCondition(condition);
+    config.setWorkers(Runtime.getRuntime().availableProcessors());
+
+    Random random = new Random(0);
+    try (Writer writer = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+      writer.write(String.join(",", headers));
+      writer.write("\r\n");
+      for (int row = 0; row < rows; row++) {
+        for (int i = 0; i < items; i++) {
+          writer.write(i > 0 ? ",\"value " : "\"value ");
+          writer.write(row + "-" + i + "\"");
+        }
+        for (int i = 0; i < items; i++) {
+          writer.write(random.nextInt(100) < hitPercent ? ",1" : ",2");
+        }
+        writer.write("\r\n");
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(input);
+    Files.deleteIfExists(output);
+    Files.deleteIfExists(directory);
+  }
+
+  @Benchmark
+  public void processCsv() throws IOException {
+    CsvParse.processCsv(input, output, config);
+  }
+
+  @Benchmark
+  public void processCsvStreaming() throws IOException {
+    CsvParse.processCsvStreaming(input, output, config);
+  }
+
+  @Benchmark
+  public void processCsvParallel() throws IOException {
+    CsvParse.processCsvParallel(input, output, config);
+  }
+
+  @Benchmark
+  public void processCsvMapped() throws IOException {
+    CsvParse.processCsvMapped(input, output, config);
+  }
+}
@@ -0,0 +1,80 @@
+package org.example;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link FunctionalJsonRegexMatcher#regexMatcher}と{@link CompiledRegexMatcher}のベンチマーク.
+ * 1回の操作でtransactions件の文字列を判定する.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RegexMatcherBenchmark {
+  // ルール数. 各ルールは前方一致、後方一致、文字クラスの3つのパターンを持つ
+  @Param({ "1", "10", "100" })
+  int patternCount;
+
+  // 1回の操作で判定する文字列の数
+  @Param({ "1000" })
+  int transactions;
+
+  // 一致するルールの位置. FIRST:先頭のルール、LAST:最後のルール、MISS:一致しない
+  @Param({ "FIRST", "LAST", "MISS" })
+  String distribution;
+
+  private RegexPattern[] regexPatterns;
+  private CompiledRegexMatcher compiledRegexMatcher;
+  private String[] inputs;
+
+  @Setup
+  public void setup() {
+    regexPatterns = new RegexPattern[patternCount];
+    for (int i = 0; i < patternCount; i++) {
+      regexPatterns[i] = new RegexPattern(
+          new String[] { "^K" + i + "-", "-K" + i + "$", "^X" + i + "[0-9]+Y$" }, "R" + i);
+    }
+    compiledRegexMatcher = new CompiledRegexMatcher(regexPatterns);
+
+    Random random = new Random(0);
+    inputs = new String[transactions];
+    for (int i = 0; i < transactions; i++) {
+      String body = "value" + random.nextInt(100000);
+      switch (distribution) {
+        case "FIRST":
+          inputs[i] = "K0-" + body;
+          break;
+        case "LAST":
+          inputs[i] = "X" + (patternCount - 1) + random.nextInt(1000) + "Y";
+          break;
+        default:
+          inputs[i] = body;
+          break;
+      }
+    }
+  }
+
+  @Benchmark
+  public void regexMatcher(Blackhole blackhole) {
+    for (String input : inputs) {
+      blackhole.consume(FunctionalJsonRegexMatcher.regexMatcher.apply(input, regexPatterns));
+    }
+  }
+
+  @Benchmark
+  public void compiledRegexMatcher(Blackhole blackhole) {
+    for (String input : inputs) {
+      blackhole.consume(compiledRegexMatcher.match(input));
+    }
+  }
+}
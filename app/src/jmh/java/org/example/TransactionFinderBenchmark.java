@@ -0,0 +1,108 @@
+package org.example;
+
+import java.io.Reader;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * findTransactionByConditionsの1回の呼び出しのベンチマーク. 数種類の条件の形を順に使い、
+ * Mapper.xmlの動的SQLの文をSIMPLEとREUSEのSqlSessionで実行する場合と、{@link TransactionFinder}を比較する.
+ * 同じ条件の検索がSqlSessionのローカルキャッシュから返らないように、毎回キャッシュを消してから実行する.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransactionFinderBenchmark {
+  // 複数条件での検索
+  private static final String FIND_TRANSACTION_BY_CONDITIONS = "org.example.Mapper.findTransactionByConditions";
+
+  // トランザクションテーブルの件数
+  private static final int ROWS = 1000;
+
+  // 順に使う条件の形
+  private static final List<List<Map<String, String>>> SHAPES = List.of(
+      List.of(Map.of("columnName", "ITEM1", "value", "A1%")),
+      List.of(Map.of("columnName", "ITEM1", "value", "A2%"), Map.of("columnName", "ITEM2", "value", "B2%")),
+      List.of(Map.of("columnName", "ITEM2", "value", "B3%"), Map.of("columnName", "ITEM1", "value", "A3%")),
+      List.of(Map.of("columnName", "ITEM3", "value", "C45%")));
+
+  private SqlSessionFactory sqlSessionFactory;
+  private SqlSession simpleSession;
+  private SqlSession reuseSession;
+  private SqlSession finderSession;
+  private TransactionFinder finder;
+  private int call;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    try (SqlSession session = sqlSessionFactory.openSession(true);
+        Statement statement = session.getConnection().createStatement()) {
+      statement.execute("DROP TABLE IF EXISTS T_TRANSACTION");
+      statement.execute("CREATE TABLE T_TRANSACTION (ID VARCHAR(10) PRIMARY KEY,"
+          + " ITEM1 VARCHAR(10), ITEM2 VARCHAR(10), ITEM3 VARCHAR(10))");
+      statement.execute("INSERT INTO T_TRANSACTION SELECT X, 'A' || X, 'B' || X, 'C' || X"
+          + " FROM SYSTEM_RANGE(1, " + ROWS + ")");
+    }
+    simpleSession = sqlSessionFactory.openSession(ExecutorType.SIMPLE);
+    reuseSession = sqlSessionFactory.openSession(ExecutorType.REUSE);
+    finderSession = sqlSessionFactory.openSession(ExecutorType.REUSE);
+    finder = new TransactionFinder(finderSession);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    finder.close();
+    finderSession.close();
+    reuseSession.close();
+    simpleSession.close();
+  }
+
+  /**
+   * 動的SQLの文をSIMPLEで実行する（呼び出しごとにPreparedStatementを作成する）
+   */
+  @Benchmark
+  public List<Map<String, String>> mapperSimple() {
+    simpleSession.clearCache();
+    return simpleSession.selectList(FIND_TRANSACTION_BY_CONDITIONS, Map.of("conditions", nextShape()));
+  }
+
+  /**
+   * 動的SQLの文をREUSEで実行する（条件の順序が違うと別のSQLとなる）
+   */
+  @Benchmark
+  public List<Map<String, String>> mapperReuse() {
+    reuseSession.clearCache();
+    return reuseSession.selectList(FIND_TRANSACTION_BY_CONDITIONS, Map.of("conditions", nextShape()));
+  }
+
+  @Benchmark
+  public List<Map<String, String>> finder() {
+    finderSession.clearCache();
+    return finder.find(nextShape());
+  }
+
+  private List<Map<String, String>> nextShape() {
+    call = (call + 1) % SHAPES.size();
+    return SHAPES.get(call);
+  }
+}
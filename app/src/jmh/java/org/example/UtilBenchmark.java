@@ -0,0 +1,145 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link Util}のレコード変換関数のベンチマーク. 1回の操作でrows件のレコードを処理する.
+ * 列数の半分をITEMn、残りを状態列STAT-ITEMnとする.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UtilBenchmark {
+  // レコードの列数
+  @Param({ "10", "100", "500" })
+  int width;
+
+  // 1回の操作で処理するレコード数
+  @Param({ "1000" })
+  int rows;
+
+  // 変換、クリア、トリムの対象となる値の割合（0〜100）
+  @Param({ "0", "50", "100" })
+  int hitPercent;
+
+  private List<Map<String, String>> records;
+  private Function<Map<String, String>, Map<String, String>> transformValues;
+  private Function<Map<String, String>, Map<String, String>> clearValuesByConditions;
+  private CompiledTransformer compiledTransformer;
+  private List<String> columnOrder;
+  private Function<Map<String, String>, String> legacyConvert;
+  private Function<Map<String, String>, String> convertToCommaSeparatedRecord;
+  private CsvLineEncoder encoder;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(0);
+    int items = width / 2;
+    Map<String, String> valuePairs = new HashMap<>();
+    Map<String, String> clearConditions = new HashMap<>();
+    for (int i = 1; i <= items; i++) {
+      valuePairs.put("ITEM" + i, "STAT-ITEM" + i);
+      clearConditions.put("ITEM" + i, "^A.*");
+    }
+
+    records = new ArrayList<>();
+    for (int row = 0; row < rows; row++) {
+      Map<String, String> record = new HashMap<>();
+      for (int i = 1; i <= items; i++) {
+        boolean hit = random.nextInt(100) < hitPercent;
+        // 対象の値は"A"で始まり末尾にスペースを持ち、状態列は変換の条件に一致する
+        record.put("ITEM" + i, hit ? "A" + row + "  " : "B" + row);
+        record.put("STAT-ITEM" + i, hit ? "1" : "2");
+      }
+      records.add(record);
+    }
+
+    String[] transformConditions = { "1|3", "@" };
+    transformValues = Util.transformValues.apply(valuePairs).apply(transformConditions);
+    clearValuesByConditions = Util.clearValuesByConditions.apply(clearConditions);
+    compiledTransformer = CompiledTransformer.compile(valuePairs, transformConditions);
+
+    columnOrder = new ArrayList<>(records.get(0).keySet());
+    // CsvLineEncoderに置き換える前のUtil.convertToCommaSeparatedRecord
+    legacyConvert = record -> columnOrder.stream()
+        .map(key -> "\"" + (record.getOrDefault(key, "") != null ? record.get(key) : "") + "\"")
+        .collect(Collectors.joining(","));
+    convertToCommaSeparatedRecord = Util.convertToCommaSeparatedRecord.apply(columnOrder);
+    encoder = new CsvLineEncoder(columnOrder);
+  }
+
+  @Benchmark
+  public void trimSpacesFromColumns(Blackhole blackhole) {
+    for (Map<String, String> record : records) {
+      blackhole.consume(Util.trimSpacesFromColumns.apply(record));
+    }
+  }
+
+  @Benchmark
+  public void transformValues(Blackhole blackhole) {
+    for (Map<String, String> record : records) {
+      blackhole.consume(transformValues.apply(record));
+    }
+  }
+
+  @Benchmark
+  public void clearValuesByConditions(Blackhole blackhole) {
+    for (Map<String, String> record : records) {
+      blackhole.consume(clearValuesByConditions.apply(record));
+    }
+  }
+
+  /**
+   * transformValuesとの比較用
+   */
+  @Benchmark
+  public void compiledTransformer(Blackhole blackhole) {
+    for (Map<String, String> record : records) {
+      blackhole.consume(compiledTransformer.apply(record));
+    }
+  }
+
+  @Benchmark
+  public void legacyConvertToCommaSeparatedRecord(Blackhole blackhole) {
+    for (Map<String, String> record : records) {
+      blackhole.consume(legacyConvert.apply(record));
+    }
+  }
+
+  @Benchmark
+  public void convertToCommaSeparatedRecord(Blackhole blackhole) {
+    for (Map<String, String> record : records) {
+      blackhole.consume(convertToCommaSeparatedRecord.apply(record));
+    }
+  }
+
+  /**
+   * 行ごとの文字列を作らずにWriterに書き出す
+   */
+  @Benchmark
+  public long csvLineEncoderSink() throws IOException {
+    try (CsvLineEncoder.Sink sink = encoder.to(Writer.nullWriter())) {
+      records.forEach(sink);
+      return sink.lines();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package org.example;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * レコードをテーブルにまとめて追加するライター.
+ * SqlSession（{@link ExecutorType#SIMPLE}）の接続で1つのINSERT文を準備しておき、JDBCのaddBatchでまとめて実行し、
+ * 指定した件数ごとにコミットする. Mapper.xmlのinsertRecordは動的SQLでレコードごとにSQLを組み立てるため、
+ * {@link ExecutorType#BATCH}で実行しても1件ずつのINSERTとほとんど速度が変わらない（BatchRecordWriterBenchmarkを参照）.
+ * 列の並びは{@link Util#convertToCommaSeparatedRecord}のカラム順序と同じように指定する.
+ * テーブル名と列名はSQLに埋め込むため、識別子として正しいことを検証する.
+ *
+ * <pre>
+ * try (BatchRecordWriter writer = new BatchRecordWriter(sqlSessionFactory, "T_TRANSACTION_EXPORT",
+ *     List.of("ID", "ITEM1"), 1000)) {
+ *   transactions.map(pipeline).forEach(writer);
+ * }
+ * </pre>
+ */
+public class BatchRecordWriter implements Consumer<Map<String, String>>, AutoCloseable {
+  private final SqlSession session;
+  private final PreparedStatement statement;
+  private final List<String> keys;
+  private final int batchSize;
+  private long count;
+
+  /**
+   * レコードのキーと同じ名前の列に追加する.
+   *
+   * @param sqlSessionFactory SqlSessionFactory
+   * @param table             テーブル名
+   * @param columnOrder       列の並び
+   * @param batchSize         コミットする件数
+   */
+  public BatchRecordWriter(SqlSessionFactory sqlSessionFactory, String table, List<String> columnOrder,
+      int batchSize) {
+    this(sqlSessionFactory, table, columnOrder, columnOrder, batchSize);
+  }
+
+  /**
+   * レコードのキーと異なる名前の列に追加する.
+   *
+   * @param sqlSessionFactory SqlSessionFactory
+   * @param table             テーブル名
+   * @param columns           列の並び
+   * @param keys              列に対応するレコードのキーの並び
+   * @param batchSize         コミットする件数
+   */
+  public BatchRecordWriter(SqlSessionFactory sqlSessionFactory, String table, List<String> columns,
+      List<String> keys, int batchSize) {
+    if (columns.isEmpty() || columns.size() != keys.size()) {
+      throw new IllegalArgumentException("列とキーの数が一致しません: " + columns + ", " + keys);
+    }
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("コミットする件数は1以上を指定してください: " + batchSize);
+    }
+    SqlIdentifiers.validate(table);
+    columns.forEach(SqlIdentifiers::validate);
+    this.keys = List.copyOf(keys);
+    this.batchSize = batchSize;
+
+    String sql = "INSERT INTO " + table + " (" + String.join(",", columns) + ") VALUES ("
+        + String.join(",", Collections.nCopies(columns.size(), "?")) + ")";
+    // MyBatisのExecutorは使わず、接続とトランザクションだけを使う
+    this.session = sqlSessionFactory.openSession(ExecutorType.SIMPLE, false);
+    try {
+      this.statement = session.getConnection().prepareStatement(sql);
+    } catch (SQLException e) {
+      session.close();
+      throw new PersistenceException("INSERT文の準備に失敗しました: " + sql, e);
+    }
+  }
+
+  /**
+   * レコードを1件追加する. 件数がコミットする件数に達した場合はコミットする.
+   */
+  @Override
+  public void accept(Map<String, String> record) {
+    try {
+      for (int i = 0; i < keys.size(); i++) {
+        String value = record.get(keys.get(i));
+        if (value != null) {
+          statement.setString(i + 1, value);
+        } else {
+          statement.setNull(i + 1, Types.VARCHAR);
+        }
+      }
+      statement.addBatch();
+      if (++count % batchSize == 0) {
+        flush();
+      }
+    } catch (SQLException e) {
+      throw new PersistenceException("レコードの追加に失敗しました: " + count, e);
+    }
+  }
+
+  /**
+   * レコードをすべて追加する.
+   *
+   * @return 追加した件数
+   */
+  public long writeAll(Stream<Map<String, String>> records) {
+    long before = count;
+    records.forEach(this);
+    return count - before;
+  }
+
+  /**
+   * これまでに追加した件数を返す.
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * 残りのレコードをコミットして閉じる.
+   */
+  @Override
+  public void close() {
+    // コミットに失敗した場合も、INSERT文とSqlSessionを閉じる
+    try (SqlSession closingSession = session; PreparedStatement closingStatement = statement) {
+      flush();
+    } catch (SQLException e) {
+      throw new PersistenceException("レコードの追加に失敗しました: " + count, e);
+    }
+  }
+
+  private void flush() throws SQLException {
+    statement.executeBatch();
+    session.commit(true);
+  }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+/**
+ * 値の末尾の空白をまとめてトリムするユーティリティ.
+ * {@link String#stripTrailing()}と同じ結果となり、nullは空文字列に置き換える.
+ * 末尾の1文字が空白でなければ何もせずに同じインスタンスを返すので、トリム不要の値では割り当てが発生しない.
+ * 配列の値はその場でトリムし、レコードは値が変わる場合だけ値をコピーする.
+ */
+public final class BatchTrimmer {
+  private BatchTrimmer() {
+  }
+
+  /**
+   * 値の末尾の空白をトリムする.
+   *
+   * @param value 値
+   * @return トリムした値. トリム不要の場合は同じインスタンス. nullの場合は空文字列
+   */
+  public static String stripTrailing(String value) {
+    if (value == null) {
+      return "";
+    }
+    int length = value.length();
+    // 空白はすべて基本多言語面の文字なので、末尾のchar（サロゲートを含む）だけで判定できる
+    if (length == 0 || !Character.isWhitespace(value.charAt(length - 1))) {
+      return value;
+    }
+    return value.stripTrailing();
+  }
+
+  /**
+   * 配列の範囲の値をその場でトリムする. 列ごとの値の配列をまとめて処理する.
+   *
+   * @param values 値の配列
+   * @param from   開始位置
+   * @param to     終了位置（含まない）
+   * @return 値を置き換えた件数
+   */
+  public static int trimInPlace(String[] values, int from, int to) {
+    int changed = 0;
+    for (int i = from; i < to; i++) {
+      String value = values[i];
+      String trimmed = stripTrailing(value);
+      if (trimmed != value) {
+        values[i] = trimmed;
+        changed++;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * 配列のすべての値をその場でトリムする.
+   *
+   * @return 値を置き換えた件数
+   */
+  public static int trimInPlace(String[] values) {
+    return trimInPlace(values, 0, values.length);
+  }
+
+  /**
+   * レコードの値をトリムする. トリム不要のレコードは同じインスタンスを返す.
+   */
+  public static Record trim(Record record) {
+    String[] values = record.values();
+    for (int i = 0; i < values.length; i++) {
+      String value = values[i];
+      if (stripTrailing(value) != value) {
+        // 最初に変わった値からだけトリムする
+        String[] trimmed = values.clone();
+        trimInPlace(trimmed, i, trimmed.length);
+        return new Record(record.getSchema(), trimmed);
+      }
+    }
+    return record;
+  }
+}
@@ -0,0 +1,124 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * {@link Util#clearValuesByConditions}の条件（項目名から正規表現へのMap）を一度だけコンパイルしたもの.
+ * 文字クラスと量指定子だけの単純な正規表現（"^[0-9]+$"など）は{@link LinearPattern}で入力の長さに比例する時間で判定し、
+ * バックトラックによる極端な遅延が起きない. それ以外の正規表現はコンパイル済みのPatternで判定する.
+ * 判定結果はいずれも{@link String#matches}と同じになる.
+ * 作成後は変更しないので、複数のスレッドから同時に使える.
+ *
+ * <pre>
+ * ClearRuleSet rules = ClearRuleSet.compile(Map.of("ITEM1", "^[0-9]+$"));
+ * transactions.map(rules);
+ * </pre>
+ */
+public final class ClearRuleSet implements Function<Map<String, String>, Map<String, String>> {
+  private final Rule[] rules;
+  private final Map<String, Rule> rulesByColumn = new HashMap<>();
+  // スキーマごとの、ルールの列のレコード内の位置
+  private final SchemaCache<int[]> schemaIndexes = new SchemaCache<>(this::indexesOf);
+
+  /**
+   * 1つの項目の条件.
+   */
+  private static final class Rule {
+    private final String column;
+    private final Predicate<String> predicate;
+    private final boolean linear;
+
+    Rule(String column, String regex) {
+      LinearPattern linearPattern = LinearPattern.parse(regex);
+      this.column = column;
+      this.predicate = linearPattern != null ? linearPattern::matches : Pattern.compile(regex).asMatchPredicate();
+      this.linear = linearPattern != null;
+    }
+  }
+
+  private ClearRuleSet(Map<String, String> conditions) {
+    List<Rule> ruleList = new ArrayList<>(conditions.size());
+    conditions.forEach((column, regex) -> ruleList.add(new Rule(column, regex)));
+    this.rules = ruleList.toArray(new Rule[0]);
+    for (Rule rule : rules) {
+      rulesByColumn.put(rule.column, rule);
+    }
+  }
+
+  /**
+   * 条件をコンパイルする.
+   *
+   * @param conditions 条件 (例: {"ITEM1": "^[0-9]+$","ITEM2":"^a$"...})
+   * @throws java.util.regex.PatternSyntaxException 正規表現が正しくない場合
+   */
+  public static ClearRuleSet compile(Map<String, String> conditions) {
+    return new ClearRuleSet(conditions);
+  }
+
+  /**
+   * 項目の値が条件の正規表現に一致するかを判定する.
+   *
+   * @return 一致する場合はtrue. 項目に条件がない場合や値がnullの場合はfalse
+   */
+  public boolean matches(String column, String value) {
+    Rule rule = rulesByColumn.get(column);
+    return rule != null && value != null && rule.predicate.test(value);
+  }
+
+  /**
+   * 項目の条件を線形時間で判定するかを返す.
+   */
+  public boolean isLinear(String column) {
+    Rule rule = rulesByColumn.get(column);
+    return rule != null && rule.linear;
+  }
+
+  /**
+   * 条件に一致した値を空文字列に置き換えたレコードを返す.
+   */
+  @Override
+  public Map<String, String> apply(Map<String, String> record) {
+    Map<String, String> cleared = new HashMap<>(record);
+    for (Rule rule : rules) {
+      String value = record.get(rule.column);
+      // 正規表現にマッチした場合、値を空文字列に置き換える
+      if (value != null && rule.predicate.test(value)) {
+        cleared.put(rule.column, "");
+      }
+    }
+    return cleared;
+  }
+
+  /**
+   * 条件に一致した値を空文字列に置き換えたレコードを返す. 一致する値がない場合は同じレコードを返す.
+   */
+  public Record apply(Record record) {
+    int[] columnIndexes = schemaIndexes.get(record.getSchema());
+    String[] values = record.values();
+    String[] clearedValues = null;
+    for (int i = 0; i < columnIndexes.length; i++) {
+      int index = columnIndexes[i];
+      if (index >= 0 && values[index] != null && rules[i].predicate.test(values[index])) {
+        if (clearedValues == null) {
+          clearedValues = values.clone();
+        }
+        clearedValues[index] = "";
+      }
+    }
+    return clearedValues != null ? new Record(record.getSchema(), clearedValues) : record;
+  }
+
+  private int[] indexesOf(RecordSchema schema) {
+    int[] result = new int[rules.length];
+    for (int i = 0; i < rules.length; i++) {
+      result[i] = schema.indexOf(rules[i].column);
+    }
+    return result;
+  }
+}
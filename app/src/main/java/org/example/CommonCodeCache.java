@@ -0,0 +1,233 @@
+package org.example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * V_COMMON_CODEをハッシュで参照する読み込み型のキャッシュ.
+ * キーは64文字の16進数文字列ではなく32バイトのハッシュ値（{@link DigestKey}）で持ち、
+ * 共通コードからはハッシュの列（{@link #HASH_COLUMN}）を除いてキャッシュする.
+ * 最大件数を超えると最も長く参照されていない共通コードから削除する.
+ * 見つからなかったハッシュも別の上限で覚えておき、一定時間（既定は{@link #DEFAULT_NOT_FOUND_TTL}）は同じハッシュで検索しない.
+ * そのため、後からV_COMMON_CODEに追加された共通コードは、その時間が過ぎるか{@link #preload()}するまで見つからない.
+ * V_COMMON_CODEのハッシュは小文字の16進数文字列で格納されていること. ハッシュがNULLの行はキャッシュしない.
+ * このクラスはスレッドセーフである.
+ *
+ * <pre>
+ * CommonCodeCache commonCodes = new CommonCodeCache(sqlSessionFactory, 10000);
+ * Map&lt;String, Object&gt; commonCode = commonCodes.get("abc");
+ * </pre>
+ */
+public class CommonCodeCache {
+  // ハッシュのリストで共通コードを取得する文
+  public static final String SELECT_COMMON_CODES_BY_HASHES = "org.example.Mapper.selectCommonCodesByHashes";
+
+  // すべての共通コードを取得する文
+  public static final String SELECT_ALL_COMMON_CODES = "org.example.Mapper.selectAllFromCommonCodeView";
+
+  // ハッシュの列名
+  public static final String HASH_COLUMN = "ハッシュ";
+
+  // IN句に指定する最大の件数（Oracleの上限）
+  static final int MAX_IN_LIST_SIZE = 1000;
+
+  // 見つからなかったハッシュを覚えておく既定の時間
+  public static final Duration DEFAULT_NOT_FOUND_TTL = Duration.ofMinutes(5);
+
+  private final SqlSessionFactory sqlSessionFactory;
+  private final LruCache<DigestKey, Map<String, Object>> cache;
+  // 見つからなかったハッシュから、それを忘れる時刻（System.nanoTime）へのキャッシュ
+  private final LruCache<DigestKey, Long> notFound;
+  private final long notFoundTtlNanos;
+
+  /**
+   * 見つからなかったハッシュは共通コードと同じ件数まで、{@link #DEFAULT_NOT_FOUND_TTL}の間覚えておく.
+   *
+   * @param sqlSessionFactory SqlSessionFactory
+   * @param maxEntries        キャッシュする最大件数
+   */
+  public CommonCodeCache(SqlSessionFactory sqlSessionFactory, int maxEntries) {
+    this(sqlSessionFactory, maxEntries, maxEntries, DEFAULT_NOT_FOUND_TTL);
+  }
+
+  /**
+   * @param sqlSessionFactory   SqlSessionFactory
+   * @param maxEntries          キャッシュする共通コードの最大件数
+   * @param maxNotFoundEntries  覚えておく見つからなかったハッシュの最大件数
+   * @param notFoundTtl         見つからなかったハッシュを覚えておく時間. 0の場合は毎回検索する
+   */
+  public CommonCodeCache(SqlSessionFactory sqlSessionFactory, int maxEntries, int maxNotFoundEntries,
+      Duration notFoundTtl) {
+    if (notFoundTtl.isNegative()) {
+      throw new IllegalArgumentException("見つからなかったハッシュを覚えておく時間は0以上を指定してください: " + notFoundTtl);
+    }
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.cache = new LruCache<>(maxEntries);
+    this.notFound = new LruCache<>(maxNotFoundEntries);
+    this.notFoundTtlNanos = notFoundTtl.toNanos();
+  }
+
+  /**
+   * すべての共通コードを読み込む. 最大件数を超える場合は後から読み込んだものが残る.
+   * 見つからなかったハッシュはすべて忘れる.
+   *
+   * @return 読み込んだ件数（ハッシュがNULLの行を含まない）
+   */
+  public int preload() {
+    int[] count = { 0 };
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      notFound.clear();
+      session.select(SELECT_ALL_COMMON_CODES, context -> {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> commonCode = (Map<String, Object>) context.getResultObject();
+        DigestKey key = removeHash(commonCode);
+        if (key != null) {
+          cache.put(key, commonCode);
+          count[0]++;
+        }
+      });
+    }
+    return count[0];
+  }
+
+  /**
+   * 入力文字列のSHA-256ハッシュで共通コードを取得する.
+   *
+   * @param input 入力文字列
+   * @return 共通コード. 見つからない場合はnull
+   */
+  public Map<String, Object> get(String input) {
+    return get(DigestKey.of(Sha256Hasher.hashBytes(input)));
+  }
+
+  /**
+   * 16進数文字列のハッシュで共通コードを取得する.
+   *
+   * @param hash 64文字の16進数文字列
+   * @return 共通コード. 見つからない場合はnull
+   */
+  public Map<String, Object> getByHash(String hash) {
+    return get(DigestKey.fromHex(hash));
+  }
+
+  /**
+   * 入力文字列ごとに共通コードを取得する. キャッシュにないものは1回のIN句の検索でまとめて取得する.
+   *
+   * @param inputs 入力文字列
+   * @return 入力文字列から共通コードへのMap（入力の順序）. 見つからない入力は含まない
+   */
+  public Map<String, Map<String, Object>> getAll(Collection<String> inputs) {
+    Map<String, DigestKey> keys = new LinkedHashMap<>();
+    // キャッシュにあったものは、検索で登録したものに押し出されても使えるように控えておく
+    Map<DigestKey, Map<String, Object>> found = new HashMap<>();
+    List<DigestKey> misses = new ArrayList<>();
+    for (String input : inputs) {
+      if (!keys.containsKey(input)) {
+        DigestKey key = DigestKey.of(Sha256Hasher.hashBytes(input));
+        keys.put(input, key);
+        Map<String, Object> cached = cache.get(key);
+        if (cached != null) {
+          found.put(key, cached);
+        } else if (!isKnownNotFound(key)) {
+          misses.add(key);
+        }
+      }
+    }
+    found.putAll(select(misses));
+
+    Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+    keys.forEach((input, key) -> {
+      Map<String, Object> commonCode = found.get(key);
+      if (commonCode != null) {
+        result.put(input, commonCode);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * キャッシュしている件数を返す（見つからなかったハッシュを含む）.
+   */
+  public int size() {
+    return cache.size() + notFound.size();
+  }
+
+  private Map<String, Object> get(DigestKey key) {
+    Map<String, Object> commonCode = cache.get(key);
+    if (commonCode != null || isKnownNotFound(key)) {
+      return commonCode;
+    }
+    return select(List.of(key)).get(key);
+  }
+
+  /**
+   * 見つからなかったハッシュとして覚えているかを返す. 覚えておく時間が過ぎたものは忘れる.
+   */
+  private boolean isKnownNotFound(DigestKey key) {
+    Long expiresAt = notFound.get(key);
+    if (expiresAt == null) {
+      return false;
+    }
+    if (System.nanoTime() - expiresAt < 0) {
+      return true;
+    }
+    notFound.remove(key);
+    return false;
+  }
+
+  /**
+   * 共通コードからハッシュの列を除き、キーとなるハッシュ値を返す.
+   * 16進数文字列をキーと二重に持たないよう、キャッシュする前に呼び出す.
+   *
+   * @return ハッシュ値. ハッシュがNULLの場合はnull
+   */
+  private static DigestKey removeHash(Map<String, Object> commonCode) {
+    String hash = (String) commonCode.remove(HASH_COLUMN);
+    return hash != null ? DigestKey.fromHex(hash) : null;
+  }
+
+  /**
+   * ハッシュで共通コードを検索してキャッシュに登録する. 見つからなかったハッシュは覚えておく.
+   */
+  private Map<DigestKey, Map<String, Object>> select(List<DigestKey> keys) {
+    Map<DigestKey, Map<String, Object>> loaded = new HashMap<>();
+    if (keys.isEmpty()) {
+      return loaded;
+    }
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      for (int from = 0; from < keys.size(); from += MAX_IN_LIST_SIZE) {
+        List<String> hashes = new ArrayList<>();
+        for (DigestKey key : keys.subList(from, Math.min(from + MAX_IN_LIST_SIZE, keys.size()))) {
+          hashes.add(key.toHex());
+        }
+        List<Map<String, Object>> commonCodes = session.selectList(SELECT_COMMON_CODES_BY_HASHES,
+            Map.of("hashes", hashes));
+        for (Map<String, Object> commonCode : commonCodes) {
+          DigestKey key = removeHash(commonCode);
+          if (key != null) {
+            loaded.put(key, commonCode);
+          }
+        }
+      }
+    }
+    long expiresAt = System.nanoTime() + notFoundTtlNanos;
+    for (DigestKey key : keys) {
+      Map<String, Object> commonCode = loaded.get(key);
+      if (commonCode != null) {
+        cache.put(key, commonCode);
+        notFound.remove(key);
+      } else if (notFoundTtlNanos > 0) {
+        notFound.put(key, expiresAt);
+      }
+    }
+    return loaded;
+  }
+}
@@ -0,0 +1,130 @@
+package org.example;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 文字列をキーとする読み取り専用のオープンアドレス法のハッシュマップ.
+ * HashMapのようにエントリごとのオブジェクトを持たず、キー、値、ハッシュ値を配列に並べて持つ.
+ * 衝突は線形探索で解決し、負荷率は1/2以下とする. 作成後は変更しないため、複数のスレッドから参照できる.
+ * 値にはnullを格納できる.
+ *
+ * @param <V> 値の型
+ */
+final class CompactStringMap<V> {
+  private final String[] keys;
+  private final Object[] values;
+  private final int[] hashes;
+  private final int mask;
+  private final int size;
+
+  /**
+   * マップの内容をコピーして作成する. nullのキーは無視する.
+   */
+  CompactStringMap(Map<String, ? extends V> map) {
+    int capacity = Integer.highestOneBit(Math.max(map.size(), 1) * 2 - 1) << 1;
+    this.keys = new String[capacity];
+    this.values = new Object[capacity];
+    this.hashes = new int[capacity];
+    this.mask = capacity - 1;
+
+    int count = 0;
+    for (Map.Entry<String, ? extends V> entry : map.entrySet()) {
+      String key = entry.getKey();
+      if (key == null) {
+        continue;
+      }
+      int hash = hash(key);
+      int slot = hash & mask;
+      while (keys[slot] != null) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = key;
+      values[slot] = entry.getValue();
+      hashes[slot] = hash;
+      count++;
+    }
+    this.size = count;
+  }
+
+  /**
+   * キーの格納位置を返す.
+   *
+   * @return 格納位置. キーがない場合は-1
+   */
+  int indexOf(String key) {
+    int hash = hash(key);
+    for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+      String candidate = keys[slot];
+      if (candidate == null) {
+        return -1;
+      }
+      if (hashes[slot] == hash && candidate.equals(key)) {
+        return slot;
+      }
+    }
+  }
+
+  /**
+   * 値を返す.
+   *
+   * @return 値. キーがない場合はnull
+   */
+  V get(String key) {
+    int slot = indexOf(key);
+    return slot >= 0 ? valueAt(slot) : null;
+  }
+
+  /**
+   * 値を返す.
+   *
+   * @return 値. キーがない場合はdefaultValue
+   */
+  V getOrDefault(String key, V defaultValue) {
+    int slot = indexOf(key);
+    return slot >= 0 ? valueAt(slot) : defaultValue;
+  }
+
+  boolean containsKey(String key) {
+    return indexOf(key) >= 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * 格納位置の数を返す. {@link #keyAt(int)}と{@link #valueAt(int)}で走査する場合に使う.
+   */
+  int capacity() {
+    return keys.length;
+  }
+
+  /**
+   * 格納位置のキーを返す.
+   *
+   * @return キー. 空いている場合はnull
+   */
+  String keyAt(int slot) {
+    return keys[slot];
+  }
+
+  @SuppressWarnings("unchecked")
+  V valueAt(int slot) {
+    return (V) values[slot];
+  }
+
+  void forEach(BiConsumer<String, ? super V> action) {
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != null) {
+        action.accept(keys[slot], valueAt(slot));
+      }
+    }
+  }
+
+  private static int hash(String key) {
+    // 下位ビットだけで格納位置を決めるため、上位ビットを混ぜる
+    int h = key.hashCode() * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+}
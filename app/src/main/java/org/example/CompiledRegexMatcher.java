@@ -0,0 +1,138 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+import com.google.gson.Gson;
+
+/**
+ * RegexPatternの配列から一度だけ構築する、再利用可能な正規表現マッチャー.
+ * {@link FunctionalJsonRegexMatcher#regexMatcher}と同じ結果を返すが、パターンは構築時にコンパイルしてキャッシュする.
+ * "^X|X$"のようなリテラルと位置指定子だけのパターンは{@link LiteralPattern}として文字列比較で判定し、
+ * それ以外のパターンは1つの選択(alternation)にまとめて1回の走査で判定する.
+ * ルールは定義順に評価し、最初にマッチしたルールの結果を返す.
+ */
+public class CompiledRegexMatcher implements Function<String, String> {
+    // 1つの選択にまとめると意味が変わるパターン（後方参照、\Q、コメントモード）
+    private static final Pattern UNSAFE_TO_COMBINE = Pattern.compile("\\\\[1-9]|\\\\k<|\\\\Q|\\(\\?[a-zA-Z-]*x");
+
+    private final Rule[] rules;
+
+    /**
+     * RegexPatternの配列からマッチャーを構築する.
+     *
+     * @param regexPatterns 正規表現パターンと結果の配列
+     */
+    public CompiledRegexMatcher(RegexPattern[] regexPatterns) {
+        this.rules = Arrays.stream(regexPatterns)
+                .map(CompiledRegexMatcher::compileRule)
+                .toArray(Rule[]::new);
+    }
+
+    /**
+     * クラスパス上のJSONファイルからマッチャーを構築する.
+     *
+     * @param resourcePath JSONファイルのパス (例: "regex_patterns.json")
+     * @return マッチャー
+     * @throws IOException 読み込みに失敗した場合
+     */
+    public static CompiledRegexMatcher load(String resourcePath) throws IOException {
+        try (Reader reader = new InputStreamReader(
+                CompiledRegexMatcher.class.getClassLoader().getResourceAsStream(resourcePath),
+                StandardCharsets.UTF_8)) {
+            return new CompiledRegexMatcher(new Gson().fromJson(reader, RegexPattern[].class));
+        }
+    }
+
+    /**
+     * トランザクションに最初にマッチしたルールの結果を返す.
+     *
+     * @param transaction トランザクション
+     * @return マッチしたルールの結果. どのルールにもマッチしない場合はnull
+     */
+    public String match(String transaction) {
+        for (Rule rule : rules) {
+            if (rule.matches(transaction)) {
+                return rule.result;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String apply(String transaction) {
+        return match(transaction);
+    }
+
+    /**
+     * ルールをコンパイルする. 文字列比較で判定できるパターンと、正規表現で判定するパターンに分ける.
+     */
+    private static Rule compileRule(RegexPattern regexPattern) {
+        List<LiteralPattern> literalPatterns = new ArrayList<>();
+        List<String> patterns = new ArrayList<>();
+        for (String pattern : regexPattern.getPatterns()) {
+            LiteralPattern literalPattern = LiteralPattern.parse(pattern);
+            if (literalPattern != null) {
+                literalPatterns.add(literalPattern);
+            } else {
+                patterns.add(pattern);
+            }
+        }
+        return new Rule(literalPatterns.toArray(new LiteralPattern[0]), compile(patterns.toArray(new String[0])),
+                regexPattern.getResult());
+    }
+
+    /**
+     * 正規表現をコンパイルする. まとめても意味が変わらない場合は1つの選択にまとめる.
+     */
+    private static Pattern[] compile(String[] patterns) {
+        // 不正なパターンは個別のコンパイルで検出する
+        Pattern[] compiledPatterns = Arrays.stream(patterns).map(Pattern::compile).toArray(Pattern[]::new);
+        if (patterns.length > 1 && Arrays.stream(patterns).noneMatch(p -> UNSAFE_TO_COMBINE.matcher(p).find())) {
+            try {
+                return new Pattern[] { Pattern.compile(Arrays.stream(patterns)
+                        .map(pattern -> "(?:" + pattern + ")")
+                        .collect(Collectors.joining("|"))) };
+            } catch (PatternSyntaxException e) {
+                // 名前付きグループの重複などでまとめられない場合は個別のパターンを使う
+            }
+        }
+        return compiledPatterns;
+    }
+
+    private static class Rule {
+        private final LiteralPattern[] literalPatterns;
+        private final Pattern[] patterns;
+        private final String result;
+
+        Rule(LiteralPattern[] literalPatterns, Pattern[] patterns, String result) {
+            this.literalPatterns = literalPatterns;
+            this.patterns = patterns;
+            this.result = result;
+        }
+
+        boolean matches(String transaction) {
+            // 文字列比較で判定できるパターンを先に評価する
+            for (LiteralPattern literalPattern : literalPatterns) {
+                if (literalPattern.find(transaction)) {
+                    return true;
+                }
+            }
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(transaction).find()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
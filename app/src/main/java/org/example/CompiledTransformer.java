@@ -0,0 +1,160 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * {@link Util#transformValues}の変換ルールを事前にコンパイルしたもの.
+ * 条件の正規表現は一度だけコンパイルし、項目名と状態項目名のペアはヘッダーに合わせて列番号に解決しておく.
+ * 1レコードあたりの処理は変換対象の列だけを見るため、列数の多いレコードでも高速に変換できる.
+ */
+public final class CompiledTransformer implements Function<Map<String, String>, Map<String, String>> {
+  private final String[] items;
+  private final String[] states;
+  private final Pattern pattern;
+  private final String replacement;
+
+  private CompiledTransformer(Map<String, String> valuePairs, String[] conditions) {
+    this.items = valuePairs.keySet().toArray(new String[0]);
+    this.states = new String[items.length];
+    for (int i = 0; i < items.length; i++) {
+      states[i] = valuePairs.get(items[i]);
+    }
+    // conditionsは2要素の配列という前提
+    this.pattern = Pattern.compile(conditions[0]);
+    this.replacement = conditions[1];
+  }
+
+  /**
+   * 設定から変換ルールをコンパイルする.
+   *
+   * @param config 設定
+   * @return コンパイル済みの変換ルール
+   */
+  public static CompiledTransformer compile(CsvParse.Config config) {
+    return compile(CsvParse.toValuePairs(config), CsvParse.toTransformConditions(config));
+  }
+
+  /**
+   * 項目名と状態項目名のペアと条件から変換ルールをコンパイルする.
+   *
+   * @param valuePairs 項目名と状態項目名のペア (例: {"項目A": "状態-項目A", ...})
+   * @param conditions 条件 (例: {"1|3": "@"})
+   * @return コンパイル済みの変換ルール
+   */
+  public static CompiledTransformer compile(Map<String, String> valuePairs, String[] conditions) {
+    return new CompiledTransformer(valuePairs, conditions);
+  }
+
+  /**
+   * レコードを変換する. {@link Util#transformValues}と同じ結果を返す.
+   *
+   * @param record トランザクションレコード
+   * @return 変換後のレコード
+   */
+  @Override
+  public Map<String, String> apply(Map<String, String> record) {
+    Map<String, String> transformedRecord = new HashMap<>(record);
+    for (int i = 0; i < items.length; i++) {
+      // 変換対象の列がレコードにある場合のみ、変換前のレコードから状態値を取得する
+      if (record.containsKey(items[i]) && matches(record.get(states[i]))) {
+        transformedRecord.put(items[i], replacement);
+      }
+    }
+    return transformedRecord;
+  }
+
+  /**
+   * ヘッダーに合わせて項目名と状態項目名を列番号に解決する.
+   *
+   * @param headers ヘッダー
+   * @return 列番号で変換する変換ルール
+   */
+  public Bound bind(List<String> headers) {
+    int[] itemIndexes = new int[items.length];
+    int[] stateIndexes = new int[items.length];
+    int size = 0;
+    for (int i = 0; i < items.length; i++) {
+      int itemIndex = headers.indexOf(items[i]);
+      int stateIndex = headers.indexOf(states[i]);
+      // 変換対象の列か状態列がない場合は変換されないので除外する
+      if (itemIndex >= 0 && stateIndex >= 0) {
+        itemIndexes[size] = itemIndex;
+        stateIndexes[size] = stateIndex;
+        size++;
+      }
+    }
+    return new Bound(Arrays.copyOf(itemIndexes, size), Arrays.copyOf(stateIndexes, size));
+  }
+
+  private boolean matches(String stateValue) {
+    // stateValueがnullの場合や条件に一致しない場合は変換しない
+    return stateValue != null && pattern.matcher(stateValue).matches();
+  }
+
+  /**
+   * 列番号に解決済みの変換ルール. 値の配列を受け取り、変換後の値の配列を返す.
+   */
+  public final class Bound implements UnaryOperator<String[]> {
+    private final int[] itemIndexes;
+    private final int[] stateIndexes;
+
+    private Bound(int[] itemIndexes, int[] stateIndexes) {
+      this.itemIndexes = itemIndexes;
+      this.stateIndexes = stateIndexes;
+    }
+
+    /**
+     * 値の配列を変換する. 変換がない場合は引数の配列をそのまま返し、変換がある場合はコピーを返す.
+     *
+     * @param values ヘッダー順の値
+     * @return 変換後の値
+     */
+    @Override
+    public String[] apply(String[] values) {
+      String[] transformedValues = values;
+      for (int i = 0; i < itemIndexes.length; i++) {
+        // 状態値は常に変換前の値から取得する
+        if (matches(values[stateIndexes[i]])) {
+          if (transformedValues == values) {
+            transformedValues = values.clone();
+          }
+          transformedValues[itemIndexes[i]] = replacement;
+        }
+      }
+      return transformedValues;
+    }
+
+    /**
+     * 変換される列を判定する. 値は状態列の分だけ取得するので、値を遅延して文字列にする場合に使う.
+     *
+     * @param valueAt     列番号から値を取得する関数. 列がない場合はnullを返すこと
+     * @param columnCount 列数
+     * @param changed     変換される列にtrueを設定する配列. 呼び出し側で初期化しておくこと
+     * @return 変換される列がある場合はtrue
+     */
+    public boolean findChanges(IntFunction<String> valueAt, int columnCount, boolean[] changed) {
+      boolean found = false;
+      for (int i = 0; i < itemIndexes.length; i++) {
+        if (itemIndexes[i] < columnCount && matches(valueAt.apply(stateIndexes[i]))) {
+          changed[itemIndexes[i]] = true;
+          found = true;
+        }
+      }
+      return found;
+    }
+
+    /**
+     * 変換後の値を返す.
+     */
+    public String replacement() {
+      return replacement;
+    }
+  }
+}
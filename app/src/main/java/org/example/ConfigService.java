@@ -0,0 +1,276 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * config.jsonとregex_patterns.jsonを監視し、変更されたら読み込み直してルールを差し替えるサービス.
+ * 読み込みとコンパイルは監視スレッドで行い、できあがった{@link Snapshot}をvolatileのフィールドに差し替えるだけなので、
+ * レコードを処理するスレッドはロックを待たない. 処理中のレコードは取得済みのスナップショットのルールで最後まで処理される.
+ * 読み込みに失敗した場合はそれまでのスナップショットを使い続ける.
+ *
+ * <pre>
+ * try (ConfigService configs = new ConfigService(Path.of("config.json"), Path.of("regex_patterns.json"))) {
+ *   configs.start();
+ *   ConfigService.Snapshot rules = configs.snapshot(); // バッチや行ごとに1回取得する
+ *   rules.getTransformer().apply(record);
+ * }
+ * </pre>
+ */
+public class ConfigService implements AutoCloseable {
+  // 同じ保存で続けて届くイベントをまとめて1回の読み込みにする待ち時間（ミリ秒）
+  static final long DEBOUNCE_MILLIS = 50;
+
+  private static final Gson GSON = new Gson();
+
+  /**
+   * ある時点の設定と、それからコンパイルしたルール. 作成後は変更しない.
+   */
+  public static final class Snapshot {
+    private final long version;
+    private final Instant loadedAt;
+    private final CsvParse.Config config;
+    private final CompiledTransformer transformer;
+    private final RegexPattern[] regexPatterns;
+    private final CompiledRegexMatcher regexMatcher;
+
+    Snapshot(long version, CsvParse.Config config, RegexPattern[] regexPatterns) {
+      this.version = version;
+      this.loadedAt = Instant.now();
+      this.config = config;
+      this.transformer = CompiledTransformer.compile(config);
+      this.regexPatterns = regexPatterns;
+      this.regexMatcher = new CompiledRegexMatcher(regexPatterns);
+    }
+
+    /**
+     * 版数を返す. 最初の読み込みを1とし、読み込みに成功するたびに1増える.
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    public Instant getLoadedAt() {
+      return loadedAt;
+    }
+
+    /**
+     * 設定のコピーを返す. CsvParse.Configは変更できるので、呼び出すたびに新しいコピーを作る.
+     * 返した設定を変更しても、このスナップショットとそのルールは変わらない.
+     */
+    public CsvParse.Config getConfig() {
+      return GSON.fromJson(GSON.toJsonTree(config), CsvParse.Config.class);
+    }
+
+    public CompiledTransformer getTransformer() {
+      return transformer;
+    }
+
+    public RegexPattern[] getRegexPatterns() {
+      return regexPatterns.clone();
+    }
+
+    public CompiledRegexMatcher getRegexMatcher() {
+      return regexMatcher;
+    }
+  }
+
+  private final Path configFile;
+  private final Path regexPatternsFile;
+  private volatile Snapshot snapshot;
+
+  private final AtomicLong reloads = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final LatencyHistogram reloadLatency = new LatencyHistogram();
+  private volatile Exception lastFailure;
+
+  private WatchService watchService;
+
+  /**
+   * 設定を読み込んで作成する. ファイルがない場合はクラスパスから読み込む（その場合は監視しない）.
+   *
+   * @param configFile        config.jsonのパス
+   * @param regexPatternsFile regex_patterns.jsonのパス
+   * @throws IOException 最初の読み込みに失敗した場合
+   */
+  public ConfigService(Path configFile, Path regexPatternsFile) throws IOException {
+    this.configFile = configFile;
+    this.regexPatternsFile = regexPatternsFile;
+    this.snapshot = load(1);
+  }
+
+  /**
+   * 現在のスナップショットを返す. ブロックしない.
+   */
+  public Snapshot snapshot() {
+    return snapshot;
+  }
+
+  /**
+   * ファイルの監視を開始する. 監視はデーモンスレッドで行い、{@link #close()}で終了する.
+   *
+   * @throws IOException 監視を開始できない場合
+   */
+  public synchronized void start() throws IOException {
+    if (watchService != null) {
+      return;
+    }
+    watchService = FileSystems.getDefault().newWatchService();
+    Set<Path> directories = new LinkedHashSet<>();
+    for (Path file : new Path[] { configFile, regexPatternsFile }) {
+      Path directory = file.toAbsolutePath().getParent();
+      if (Files.exists(file) && directory != null) {
+        directories.add(directory);
+      }
+    }
+    for (Path directory : directories) {
+      directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+    WatchService service = watchService;
+    Thread watcher = new Thread(() -> watch(service), "config-watcher");
+    watcher.setDaemon(true);
+    watcher.start();
+  }
+
+  /**
+   * ファイルを読み込み直してスナップショットを差し替える. 失敗した場合はそれまでのスナップショットが残る.
+   *
+   * @return 差し替えた場合はtrue
+   */
+  public synchronized boolean reload() {
+    long start = System.nanoTime();
+    try {
+      snapshot = load(snapshot.getVersion() + 1);
+      reloads.incrementAndGet();
+      return true;
+    } catch (IOException | RuntimeException e) {
+      failures.incrementAndGet();
+      lastFailure = e;
+      return false;
+    } finally {
+      reloadLatency.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * 読み込み直した回数を返す（最初の読み込みを含まない）.
+   */
+  public long reloads() {
+    return reloads.get();
+  }
+
+  /**
+   * 読み込みに失敗した回数を返す.
+   */
+  public long failures() {
+    return failures.get();
+  }
+
+  /**
+   * 最後に失敗した読み込みの例外を返す. 失敗していない場合はnull.
+   */
+  public Exception lastFailure() {
+    return lastFailure;
+  }
+
+  /**
+   * 読み込みとコンパイルにかかった時間のヒストグラムを返す.
+   */
+  public LatencyHistogram reloadLatency() {
+    return reloadLatency;
+  }
+
+  /**
+   * 現在の計測値を返す. 時間はマイクロ秒とする.
+   *
+   * @return 計測値の名前から値へのMap（挿入順）
+   */
+  public Map<String, Number> metrics() {
+    Map<String, Number> metrics = new LinkedHashMap<>();
+    metrics.put("version", snapshot.getVersion());
+    metrics.put("reloads", reloads());
+    metrics.put("failures", failures());
+    metrics.put("reloadP50Micros", TimeUnit.NANOSECONDS.toMicros(reloadLatency.percentileNanos(50)));
+    metrics.put("reloadMaxMicros", TimeUnit.NANOSECONDS.toMicros(reloadLatency.maxNanos()));
+    return metrics;
+  }
+
+  /**
+   * 監視を終了する.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (watchService != null) {
+      watchService.close();
+      watchService = null;
+    }
+  }
+
+  private void watch(WatchService service) {
+    try {
+      while (true) {
+        WatchKey key = service.take();
+        boolean changed = false;
+        // エディタの保存などで続けて届くイベントをまとめる
+        do {
+          changed |= isTarget(key);
+          key.reset();
+          key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        } while (key != null);
+        if (changed) {
+          reload();
+        }
+      }
+    } catch (ClosedWatchServiceException | InterruptedException e) {
+      // closeで終了した
+    }
+  }
+
+  private boolean isTarget(WatchKey key) {
+    Path directory = (Path) key.watchable();
+    boolean target = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.context() instanceof Path) {
+        Path file = directory.resolve((Path) event.context());
+        target |= file.equals(configFile.toAbsolutePath()) || file.equals(regexPatternsFile.toAbsolutePath());
+      }
+    }
+    return target;
+  }
+
+  private Snapshot load(long version) throws IOException {
+    CsvParse.Config config = parse(configFile, CsvParse.Config.class);
+    RegexPattern[] regexPatterns = parse(regexPatternsFile, RegexPattern[].class);
+    return new Snapshot(version, config, regexPatterns);
+  }
+
+  private static <T> T parse(Path file, Class<T> type) throws IOException {
+    try (Reader reader = CsvParse.newReader(file, CsvParse.DEFAULT_BUFFER_SIZE)) {
+      T value = GSON.fromJson(reader, type);
+      if (value == null) {
+        throw new IOException("設定ファイルが空です: " + file);
+      }
+      return value;
+    } catch (JsonParseException e) {
+      throw new IOException("設定ファイルを解析できません: " + file, e);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * CSVをレコードの区切りで分割したチャンクとして読み込むクラス.
+ * レコードの区切りはダブルクォートの外の改行（CRLF、LF、CRのみ）とし、フィールド内の改行ではチャンクを区切らない.
+ * フィールドの途中にダブルクォートがあるような、RFC 4180に従わない入力は考慮しない.
+ */
+class CsvChunkReader {
+  private final Reader reader;
+  private final char[] readBuffer = new char[64 * 1024];
+  private final StringBuilder buffer = new StringBuilder();
+  // bufferのうち走査済みの文字数と、走査済みの位置がダブルクォートの中かどうか
+  private int scanned;
+  private boolean inQuotes;
+
+  CsvChunkReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * 次のチャンクを読み込む. チャンクは指定した文字数以上で、最初のレコードの区切り（改行）までとなる.
+   *
+   * @param minLength チャンクの最小の文字数
+   * @return チャンク. 入力の終わりに達した場合はnull
+   * @throws IOException 読み込みに失敗した場合
+   */
+  String next(int minLength) throws IOException {
+    while (true) {
+      while (scanned < buffer.length()) {
+        char c = buffer.charAt(scanned++);
+        if (c == '"') {
+          // エスケープされたダブルクォート("")は2回反転するので状態は変わらない
+          inQuotes = !inQuotes;
+        } else if ((c == '\n' || c == '\r') && !inQuotes && scanned >= minLength) {
+          if (c == '\r') {
+            if (scanned == buffer.length()) {
+              // CRLFが分かれて読み込まれた場合に備え、次の文字を読み込んでから判定する
+              scanned--;
+              break;
+            }
+            if (buffer.charAt(scanned) == '\n') {
+              scanned++;
+            }
+          }
+          return take(scanned);
+        }
+      }
+      int read = reader.read(readBuffer);
+      if (read < 0) {
+        return buffer.length() > 0 ? take(buffer.length()) : null;
+      }
+      buffer.append(readBuffer, 0, read);
+    }
+  }
+
+  private String take(int length) {
+    String chunk = buffer.substring(0, length);
+    buffer.delete(0, length);
+    scanned = 0;
+    return chunk;
+  }
+}
@@ -0,0 +1,306 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * レコードをカラム順序に従ってダブルクォートで囲んだカンマ区切りの1行に変換するエンコーダ.
+ * 値の中のダブルクォートは2つ重ねてエスケープする（RFC 4180）.
+ * 値ごとの文字列を作らずにStringBuilderに直接追加し、{@link Sink}では複数行をまとめてWriterかチャネルに書き出す.
+ * エンコーダ自体は変更されないので複数のスレッドから使えるが、Sinkはスレッドごとに作成すること.
+ *
+ * <pre>
+ * CsvLineEncoder encoder = new CsvLineEncoder(columnOrder);
+ * try (CsvLineEncoder.Sink sink = encoder.to(writer)) {
+ *   records.forEach(sink);
+ * }
+ * </pre>
+ */
+public final class CsvLineEncoder {
+  // 行の区切り
+  public static final String LINE_SEPARATOR = "\r\n";
+
+  // Sinkがまとめて書き出す文字数
+  static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+  // カラムがない場合に出力する値（Util.convertToCommaSeparatedRecordのこれまでの出力）
+  private static final String MISSING = "null";
+
+  // encodeで使うスレッドごとのStringBuilder
+  private static final ThreadLocal<StringBuilder> LINE = ThreadLocal.withInitial(StringBuilder::new);
+
+  private final String[] columns;
+
+  /**
+   * @param columnOrder カラム順序
+   */
+  public CsvLineEncoder(List<String> columnOrder) {
+    this.columns = columnOrder.toArray(new String[0]);
+  }
+
+  /**
+   * レコードを1行の文字列に変換する. 行の区切りは含まない.
+   */
+  public String encode(Map<String, String> record) {
+    StringBuilder line = LINE.get();
+    line.setLength(0);
+    return append(record, line).toString();
+  }
+
+  /**
+   * レコードを1行にしてStringBuilderに追加する. 行の区切りは追加しない.
+   * カラムがない場合は"null"、値がnullの場合は空文字列とする.
+   *
+   * @return 追加したStringBuilder
+   */
+  public StringBuilder append(Map<String, String> record, StringBuilder out) {
+    for (int i = 0; i < columns.length; i++) {
+      if (i > 0) {
+        out.append(',');
+      }
+      String value = record.get(columns[i]);
+      if (value == null) {
+        value = record.containsKey(columns[i]) ? "" : MISSING;
+      }
+      appendField(value, out);
+    }
+    return out;
+  }
+
+  /**
+   * 値をダブルクォートで囲み、値の中のダブルクォートをエスケープしてStringBuilderに追加する.
+   *
+   * @param value 値. nullの場合は空文字列とする
+   * @return 追加したStringBuilder
+   */
+  public static StringBuilder appendField(String value, StringBuilder out) {
+    out.append('"');
+    if (value != null) {
+      int from = 0;
+      for (int quote = value.indexOf('"'); quote >= 0; quote = value.indexOf('"', from)) {
+        out.append(value, from, quote + 1).append('"');
+        from = quote + 1;
+      }
+      out.append(value, from, value.length());
+    }
+    return out.append('"');
+  }
+
+  /**
+   * Writerに書き出すSinkを作成する.
+   */
+  public Sink to(Writer writer) {
+    return to(writer, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Writerに書き出すSinkを作成する.
+   *
+   * @param blockSize まとめて書き出す文字数
+   */
+  public Sink to(Writer writer, int blockSize) {
+    return new WriterSink(writer, blockSize);
+  }
+
+  /**
+   * チャネルにUTF-8で書き出すSinkを作成する.
+   */
+  public Sink to(WritableByteChannel channel) {
+    return to(channel, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * チャネルにUTF-8で書き出すSinkを作成する.
+   *
+   * @param blockSize まとめて書き出す文字数
+   */
+  public Sink to(WritableByteChannel channel, int blockSize) {
+    return new ChannelSink(channel, blockSize);
+  }
+
+  /**
+   * レコードを1行ずつ受け取り、ブロックの大きさを超えたらまとめて書き出す出力先.
+   * 書き出しに失敗した場合はUncheckedIOExceptionとする. closeすると出力先も閉じる.
+   * このクラスはスレッドセーフではない.
+   */
+  public abstract class Sink implements Consumer<Map<String, String>>, Flushable, Closeable {
+    private final StringBuilder block;
+    private final int blockSize;
+    private long lines;
+
+    Sink(int blockSize) {
+      if (blockSize <= 0) {
+        throw new IllegalArgumentException("ブロックの大きさは1以上を指定してください: " + blockSize);
+      }
+      this.blockSize = blockSize;
+      this.block = new StringBuilder(blockSize + 256);
+    }
+
+    /**
+     * レコードを1行にして追加する.
+     */
+    @Override
+    public void accept(Map<String, String> record) {
+      append(record, block).append(LINE_SEPARATOR);
+      endLine();
+    }
+
+    /**
+     * 変換済みの1行を追加する. 行の区切りはこのメソッドで追加する.
+     */
+    public void acceptLine(CharSequence line) {
+      block.append(line).append(LINE_SEPARATOR);
+      endLine();
+    }
+
+    /**
+     * 追加した行数を返す.
+     */
+    public long lines() {
+      return lines;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      writeBlock();
+      flushTarget();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+      } finally {
+        closeTarget();
+      }
+    }
+
+    private void endLine() {
+      lines++;
+      if (block.length() >= blockSize) {
+        try {
+          writeBlock();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+
+    private void writeBlock() throws IOException {
+      if (block.length() > 0) {
+        write(block);
+        block.setLength(0);
+      }
+    }
+
+    /**
+     * ブロックを出力先に書き出す.
+     */
+    abstract void write(StringBuilder block) throws IOException;
+
+    abstract void flushTarget() throws IOException;
+
+    abstract void closeTarget() throws IOException;
+  }
+
+  private final class WriterSink extends Sink {
+    private final Writer writer;
+    private char[] chars;
+
+    WriterSink(Writer writer, int blockSize) {
+      super(blockSize);
+      this.writer = writer;
+      this.chars = new char[blockSize + 256];
+    }
+
+    @Override
+    void write(StringBuilder block) throws IOException {
+      if (chars.length < block.length()) {
+        chars = new char[block.length()];
+      }
+      block.getChars(0, block.length(), chars, 0);
+      writer.write(chars, 0, block.length());
+    }
+
+    @Override
+    void flushTarget() throws IOException {
+      writer.flush();
+    }
+
+    @Override
+    void closeTarget() throws IOException {
+      writer.close();
+    }
+  }
+
+  private final class ChannelSink extends Sink {
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer bytes;
+    private char[] chars;
+    private CharBuffer charBuffer;
+
+    ChannelSink(WritableByteChannel channel, int blockSize) {
+      super(blockSize);
+      this.channel = channel;
+      this.chars = new char[blockSize + 256];
+      this.charBuffer = CharBuffer.wrap(chars);
+      // UTF-8は1文字あたり最大3バイト（サロゲートペアは2文字で4バイト）
+      this.bytes = ByteBuffer.allocate((blockSize + 256) * 3);
+    }
+
+    @Override
+    void write(StringBuilder block) throws IOException {
+      if (chars.length < block.length()) {
+        chars = new char[block.length()];
+        charBuffer = CharBuffer.wrap(chars);
+      }
+      block.getChars(0, block.length(), chars, 0);
+      charBuffer.clear().limit(block.length());
+      encoder.reset();
+      while (true) {
+        CoderResult result = encoder.encode(charBuffer, bytes, true);
+        if (result.isUnderflow()) {
+          result = encoder.flush(bytes);
+        }
+        if (result.isError()) {
+          result.throwException();
+        }
+        writeBytes();
+        if (result.isUnderflow()) {
+          return;
+        }
+      }
+    }
+
+    private void writeBytes() throws IOException {
+      bytes.flip();
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+      bytes.clear();
+    }
+
+    @Override
+    void flushTarget() {
+      // チャネルにはバッファがない
+    }
+
+    @Override
+    void closeTarget() throws IOException {
+      channel.close();
+    }
+  }
+}
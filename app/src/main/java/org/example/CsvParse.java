@@ -1,26 +1,59 @@
 package org.example;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
 
 import com.google.gson.Gson;
 
 public class CsvParse {
+  // 並列処理でチャンクに分割する際の目安の文字数
+  static final int PARALLEL_CHUNK_LENGTH = 1024 * 1024;
+
+  // ファイルの読み書きのバッファの既定のサイズ
+  static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
   public class Config {
     private List<ValuePair> valuePairs;
     private Condition condition;
+    private int workers;
+    private int bufferSize;
+    private boolean reportMetrics;
 
     // Getter and Setter for valuePairs
     public List<ValuePair> getValuePairs() {
@@ -40,6 +73,36 @@ public class CsvParse {
       this.condition = condition;
     }
 
+    // Getter and Setter for workers
+    // 並列処理のワーカー数. 2以上の場合はprocessCsvParallelで並列に処理する
+    public int getWorkers() {
+      return workers;
+    }
+
+    public void setWorkers(int workers) {
+      this.workers = workers;
+    }
+
+    // Getter and Setter for bufferSize
+    // ファイルの読み書きのバッファのサイズ. 0以下の場合はDEFAULT_BUFFER_SIZEとする
+    public int getBufferSize() {
+      return bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+    }
+
+    public void setBufferSize(int bufferSize) {
+      this.bufferSize = bufferSize;
+    }
+
+    // Getter and Setter for reportMetrics
+    // trueの場合はストリーミングの処理で段ごとの計測値を標準出力に出力する
+    public boolean isReportMetrics() {
+      return reportMetrics;
+    }
+
+    public void setReportMetrics(boolean reportMetrics) {
+      this.reportMetrics = reportMetrics;
+    }
+
     // Nested class for ValuePair
     public static class ValuePair {
       private String item;
@@ -90,16 +153,26 @@ public class CsvParse {
   }
 
   public static void main(String[] args) {
-    String inputFilePath = "input.csv"; // 入力CSVファイルのパス
-    String outputFilePath = "output.csv"; // 出力CSVファイルのパス
-    String configFilePath = "config.json"; // 設定JSONファイルのパス
+    // 引数がない場合はクラスパスのファイルを使う
+    Path inputFilePath = Path.of(args.length > 0 ? args[0] : "input.csv"); // 入力CSVファイルのパス
+    Path outputFilePath = Path.of(args.length > 1 ? args[1] : "output.csv"); // 出力CSVファイルのパス
+    Path configFilePath = Path.of(args.length > 2 ? args[2] : "config.json"); // 設定JSONファイルのパス
 
     try {
       // 設定をJSONファイルから読み込む
       Config config = loadConfig(configFilePath);
 
-      // CSVファイルを処理
-      processCsv(inputFilePath, outputFilePath, config);
+      // CSVファイルを処理（ワーカー数が2以上の場合は並列、それ以外はストリーミング）
+      // ストリーミングの場合、reportMetricsがtrueであれば段ごとの計測値も出力する
+      if (config.getWorkers() > 1) {
+        processCsvParallel(inputFilePath, outputFilePath, config);
+      } else if (config.isReportMetrics()) {
+        PipelineMetrics metrics = new PipelineMetrics();
+        processCsvStreaming(inputFilePath, outputFilePath, config, metrics);
+        metrics.report(PipelineMetrics.console(System.out));
+      } else {
+        processCsvStreaming(inputFilePath, outputFilePath, config, null);
+      }
       System.out.println("CSVファイルの処理が完了しました。出力ファイル: " + outputFilePath);
     } catch (IOException e) {
       System.err.println("CSVファイルの処理中にエラーが発生しました: " + e.getMessage());
@@ -116,11 +189,37 @@ public class CsvParse {
     }
   }
 
+  /**
+   * 設定をJSONファイルから読み込む. ファイルがない場合はクラスパスから読み込む.
+   */
+  public static Config loadConfig(Path filePath) throws IOException {
+    try (Reader reader = newReader(filePath, DEFAULT_BUFFER_SIZE)) {
+      return new Gson().fromJson(reader, Config.class);
+    }
+  }
+
   public static void processCsv(String inputFilePath, String outputFilePath, Config config) throws IOException {
-    // CSVファイルを読み込む
     try (Reader reader = new InputStreamReader(
         CsvParse.class.getClassLoader().getResourceAsStream(inputFilePath), StandardCharsets.UTF_8);
-        CSVParser csvParser = new CSVParser(reader,
+        Writer writer = new FileWriter(outputFilePath)) {
+      processCsv(reader, writer, config);
+    }
+  }
+
+  /**
+   * CSVファイルを処理する. 入力ファイルがない場合はクラスパスから読み込む.
+   * ファイル名が.gzで終わる場合はgzipで圧縮されているものとして読み書きする.
+   */
+  public static void processCsv(Path inputFilePath, Path outputFilePath, Config config) throws IOException {
+    try (Reader reader = newReader(inputFilePath, config.getBufferSize());
+        Writer writer = newWriter(outputFilePath, config.getBufferSize())) {
+      processCsv(reader, writer, config);
+    }
+  }
+
+  private static void processCsv(Reader reader, Writer writer, Config config) throws IOException {
+    // CSVファイルを読み込む
+    try (CSVParser csvParser = new CSVParser(reader,
             CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build())) {
 
       // ヘッダーとレコードを取得
@@ -135,9 +234,8 @@ public class CsvParse {
       List<String> newHeaders = headers;
 
       // Utilクラスの関数を準備
-      Map<String, String> valuePairs = config.getValuePairs().stream()
-          .collect(Collectors.toMap(Config.ValuePair::getItem, Config.ValuePair::getState));
-      String[] transformConditions = { config.getCondition().getPattern(), config.getCondition().getReplacement() };
+      Map<String, String> valuePairs = toValuePairs(config);
+      String[] transformConditions = toTransformConditions(config);
 
       // レコードを処理
       List<List<String>> newRecords = records.stream()
@@ -150,18 +248,405 @@ public class CsvParse {
               .collect(Collectors.toList()))
           .collect(Collectors.toList()); // CSVファイルを書き出す
 
-      try (Writer writer = new FileWriter(outputFilePath);
-          CSVPrinter csvPrinter = new CSVPrinter(writer,
-              CSVFormat.DEFAULT.withHeader(newHeaders.toArray(new String[0])))) {
+      CSVPrinter csvPrinter = new CSVPrinter(writer,
+          CSVFormat.DEFAULT.withHeader(newHeaders.toArray(new String[0])));
+
+      newRecords.forEach(row -> {
+        try {
+          csvPrinter.printRecord(row);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      csvPrinter.flush();
+    }
+  }
+
+  /**
+   * CSVファイルをストリーミングで処理する.
+   * レコードを1件ずつ読み込んで変換し、そのまま書き出すため、入力ファイルの大きさに関わらずメモリ使用量は一定となる.
+   * 出力内容は{@link #processCsv(String, String, Config)}と同一となる.
+   */
+  public static void processCsvStreaming(String inputFilePath, String outputFilePath, Config config)
+      throws IOException {
+    try (Reader reader = new InputStreamReader(
+        CsvParse.class.getClassLoader().getResourceAsStream(inputFilePath), StandardCharsets.UTF_8);
+        Writer writer = new FileWriter(outputFilePath)) {
+      processCsvStreaming(reader, writer, config);
+    }
+  }
+
+  /**
+   * CSVファイルをストリーミングで処理する. 入力ファイルがない場合はクラスパスから読み込む.
+   * ファイル名が.gzで終わる場合はgzipで圧縮されているものとして読み書きする.
+   */
+  public static void processCsvStreaming(Path inputFilePath, Path outputFilePath, Config config)
+      throws IOException {
+    try (Reader reader = newReader(inputFilePath, config.getBufferSize());
+        Writer writer = newWriter(outputFilePath, config.getBufferSize())) {
+      processCsvStreaming(reader, writer, config);
+    }
+  }
+
+  /**
+   * CSVファイルをストリーミングで処理し、変換の段の行数、置き換えた値の数、所要時間を計測する.
+   */
+  public static void processCsvStreaming(Path inputFilePath, Path outputFilePath, Config config,
+      PipelineMetrics metrics) throws IOException {
+    try (Reader reader = newReader(inputFilePath, config.getBufferSize());
+        Writer writer = newWriter(outputFilePath, config.getBufferSize())) {
+      processCsvStreaming(reader, writer, config, metrics);
+    }
+  }
+
+  /**
+   * ReaderからCSVを読み込み、変換した結果をWriterへストリーミングで書き出す.
+   */
+  static void processCsvStreaming(Reader reader, Writer writer, Config config) throws IOException {
+    processCsvStreaming(reader, writer, config, null);
+  }
+
+  /**
+   * ReaderからCSVを読み込み、変換した結果をWriterへストリーミングで書き出す.
+   *
+   * @param metrics 計測値. 計測しない場合はnull
+   */
+  static void processCsvStreaming(Reader reader, Writer writer, Config config, PipelineMetrics metrics)
+      throws IOException {
+    try (CSVParser csvParser = new CSVParser(reader,
+        CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build())) {
+
+      // ヘッダーを取得
+      // 一旦inputと同じカラム分出力するとした。
+      List<String> headers = csvParser.getHeaderNames();
+
+      // 変換ルールを事前にコンパイルし、ヘッダーの列番号に解決しておく
+      CompiledTransformer.Bound bound = CompiledTransformer.compile(config).bind(headers);
+      Function<String[], String[]> transform = metrics != null ? metrics.transformValues(bound) : bound;
+
+      CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.builder().setHeader(headers.toArray(new String[0])).build());
+
+      // CSVRecordは1件ずつ遅延して読み込まれる
+      String[] values = new String[headers.size()];
+      for (CSVRecord record : csvParser) {
+        for (int i = 0; i < values.length; i++) {
+          values[i] = record.get(i);
+        }
+        csvPrinter.printRecord((Object[]) transform.apply(values));
+      }
+      csvPrinter.flush();
+    }
+  }
+
+  /**
+   * CSVファイルを並列に処理する.
+   * 入力をレコードの区切りでチャンクに分割し、チャンクごとのパースと変換と出力形式への変換を
+   * {@link Config#getWorkers()}個のワーカーで並列に行う. 書き出しは元の順序で行うため、
+   * 出力内容は{@link #processCsv(String, String, Config)}と同一となる.
+   */
+  public static void processCsvParallel(String inputFilePath, String outputFilePath, Config config)
+      throws IOException {
+    try (Reader reader = new InputStreamReader(
+        CsvParse.class.getClassLoader().getResourceAsStream(inputFilePath), StandardCharsets.UTF_8);
+        Writer writer = new FileWriter(outputFilePath)) {
+      processCsvParallel(reader, writer, config, PARALLEL_CHUNK_LENGTH);
+    }
+  }
+
+  /**
+   * CSVファイルを並列に処理する. 入力ファイルがない場合はクラスパスから読み込む.
+   * ファイル名が.gzで終わる場合はgzipで圧縮されているものとして読み書きする.
+   */
+  public static void processCsvParallel(Path inputFilePath, Path outputFilePath, Config config)
+      throws IOException {
+    try (Reader reader = newReader(inputFilePath, config.getBufferSize());
+        Writer writer = newWriter(outputFilePath, config.getBufferSize())) {
+      processCsvParallel(reader, writer, config, PARALLEL_CHUNK_LENGTH);
+    }
+  }
+
+  /**
+   * ReaderからCSVを読み込み、指定した文字数ごとのチャンクに分けて並列に変換し、Writerへ書き出す.
+   */
+  static void processCsvParallel(Reader reader, Writer writer, Config config, int chunkLength)
+      throws IOException {
+    int workers = Math.max(1, config.getWorkers());
+    ExecutorService executor = Executors.newFixedThreadPool(workers);
+    try {
+      CsvChunkReader chunkReader = new CsvChunkReader(reader);
+
+      // ヘッダーは先頭のレコードだけを読み込んで取得する
+      String headerChunk = chunkReader.next(1);
+      List<String> headers;
+      try (CSVParser headerParser = CSVParser.parse(headerChunk != null ? headerChunk : "",
+          CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build())) {
+        headers = headerParser.getHeaderNames();
+      }
+      CompiledTransformer.Bound transform = CompiledTransformer.compile(config).bind(headers);
+
+      CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.builder().setHeader(headers.toArray(new String[0])).build());
+      csvPrinter.flush();
+
+      // 並べ替えバッファ. 投入した順に結果を書き出し、未書き出しのチャンク数はワーカー数の2倍までとする
+      Deque<Future<String>> pending = new ArrayDeque<>();
+      String chunk;
+      while ((chunk = chunkReader.next(chunkLength)) != null) {
+        String records = chunk;
+        pending.add(executor.submit(() -> transformChunk(records, headers.size(), transform)));
+        if (pending.size() >= workers * 2) {
+          writer.write(getResult(pending.poll()));
+        }
+      }
+      while (!pending.isEmpty()) {
+        writer.write(getResult(pending.poll()));
+      }
+      writer.flush();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * チャンクのレコードを変換し、CSV形式の文字列にする.
+   */
+  private static String transformChunk(String chunk, int columnCount, CompiledTransformer.Bound transform)
+      throws IOException {
+    StringBuilder out = new StringBuilder(chunk.length() + chunk.length() / 8);
+    try (CSVParser csvParser = CSVParser.parse(chunk, CSVFormat.DEFAULT);
+        CSVPrinter csvPrinter = new CSVPrinter(out, CSVFormat.DEFAULT)) {
+      String[] values = new String[columnCount];
+      for (CSVRecord record : csvParser) {
+        for (int i = 0; i < values.length; i++) {
+          values[i] = record.get(i);
+        }
+        csvPrinter.printRecord((Object[]) transform.apply(values));
+      }
+    }
+    return out.toString();
+  }
+
+  private static String getResult(Future<String> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("CSVファイルの並列処理が中断されました");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
 
-        newRecords.forEach(row -> {
-          try {
-            csvPrinter.printRecord(row);
-          } catch (IOException e) {
-            throw new UncheckedIOException(e);
+  /**
+   * メモリマップしたCSVファイルを処理する.
+   * {@link MappedCsvReader}でUTF-8のバイト列のまま走査し、文字列にするのは状態列だけとする.
+   * 変換のない行は入力のバイト列をそのまま出力にコピーし、変換のある行も変換のないフィールドは元のバイト列をそのまま使う.
+   * このため出力は入力のクォートや改行コードを保ち、{@link #processCsv(String, String, Config)}とは
+   * 書式が異なる場合がある（値は同じとなる）.
+   */
+  public static void processCsvMapped(Path inputFilePath, Path outputFilePath, Config config) throws IOException {
+    processCsvMapped(inputFilePath, outputFilePath, config, MappedCsvReader.DEFAULT_WINDOW_SIZE);
+  }
+
+  static void processCsvMapped(Path inputFilePath, Path outputFilePath, Config config, int windowSize)
+      throws IOException {
+    try (MappedCsvReader csvReader = new MappedCsvReader(inputFilePath, windowSize);
+        FileChannel input = FileChannel.open(inputFilePath, StandardOpenOption.READ);
+        FileChannel output = FileChannel.open(outputFilePath, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      processCsvMapped(csvReader, input, output, config);
+    }
+  }
+
+  private static void processCsvMapped(MappedCsvReader csvReader, FileChannel input, FileChannel output,
+      Config config) throws IOException {
+    if (csvReader.next()) {
+      // ヘッダーを取得
+      List<String> headers = new ArrayList<>();
+      for (int i = 0; i < csvReader.fieldCount(); i++) {
+        headers.add(csvReader.field(i));
+      }
+      CompiledTransformer.Bound transform = CompiledTransformer.compile(config).bind(headers);
+      ByteBuffer replacement = ByteBuffer.wrap(encodeCsvField(transform.replacement()));
+
+      // 入力のうち、まだ出力にコピーしていない位置
+      long copyFrom = 0;
+      boolean[] changed = new boolean[headers.size()];
+      ChannelOutput out = new ChannelOutput(input, output, config.getBufferSize());
+      while (csvReader.next()) {
+        Arrays.fill(changed, false);
+        if (!transform.findChanges(csvReader::field, csvReader.fieldCount(), changed)) {
+          continue;
+        }
+        // 変換のある行の手前までをそのままコピーし、変換のある行はフィールドごとに書き出す
+        out.copy(csvReader.raw(copyFrom, csvReader.rowStart()), copyFrom, csvReader.rowStart());
+        for (int i = 0; i < csvReader.fieldCount(); i++) {
+          if (i > 0) {
+            out.put((byte) ',');
           }
-        });
+          out.put(i < changed.length && changed[i] ? replacement.rewind() : csvReader.rawField(i));
+        }
+        out.put(csvReader.rawLineTerminator());
+        copyFrom = csvReader.rowEnd();
+      }
+      out.copy(null, copyFrom, csvReader.fileSize());
+      out.flush();
+    } else {
+      new ChannelOutput(input, output, 0).copy(null, 0, csvReader.fileSize());
+    }
+  }
+
+  /**
+   * 変換のある行をバッファにまとめて書き出し、変換のない範囲は入力から直接コピーする出力.
+   */
+  private static final class ChannelOutput {
+    private final FileChannel input;
+    private final FileChannel output;
+    private final ByteBuffer buffer;
+
+    ChannelOutput(FileChannel input, FileChannel output, int bufferSize) {
+      this.input = input;
+      this.output = output;
+      this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    void put(byte b) throws IOException {
+      if (!buffer.hasRemaining()) {
+        flush();
+      }
+      buffer.put(b);
+    }
+
+    void put(ByteBuffer bytes) throws IOException {
+      if (bytes.remaining() > buffer.remaining()) {
+        flush();
+        if (bytes.remaining() > buffer.capacity()) {
+          writeFully(output, bytes);
+          return;
+        }
+      }
+      buffer.put(bytes);
+    }
+
+    /**
+     * 入力の範囲[from, to)を出力にコピーする. 短い範囲はバッファに積み、長い範囲はtransferToでコピーする.
+     *
+     * @param mapped 範囲のバイト列. マップしていない場合はnull
+     */
+    void copy(ByteBuffer mapped, long from, long to) throws IOException {
+      if (mapped != null && mapped.remaining() <= buffer.capacity()) {
+        put(mapped);
+        return;
       }
+      flush();
+      transferFully(input, from, to - from, output);
+    }
+
+    void flush() throws IOException {
+      buffer.flip();
+      writeFully(output, buffer);
+      buffer.clear();
+    }
+  }
+
+  /**
+   * 値をCSVのフィールドとしてUTF-8でエンコードする. カンマ、クォート、改行を含む場合はクォートで囲む.
+   */
+  private static byte[] encodeCsvField(String value) {
+    if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\r') >= 0
+        || value.indexOf('\n') >= 0) {
+      value = "\"" + value.replace("\"", "\"\"") + "\"";
     }
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void transferFully(FileChannel input, long position, long count, FileChannel output)
+      throws IOException {
+    while (count > 0) {
+      long transferred = input.transferTo(position, count, output);
+      position += transferred;
+      count -= transferred;
+    }
+  }
+
+  private static void writeFully(FileChannel output, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      output.write(buffer);
+    }
+  }
+
+  /**
+   * UTF-8のファイルを読み込むReaderを作成する. ファイルがない場合はクラスパスのリソースを読み込む.
+   * ファイル名が.gzで終わる場合はgzipを展開する.
+   *
+   * @param path       ファイルのパス、またはクラスパスのリソース名
+   * @param bufferSize バッファのサイズ
+   * @throws NoSuchFileException ファイルもリソースもない場合
+   */
+  static Reader newReader(Path path, int bufferSize) throws IOException {
+    InputStream in;
+    if (Files.exists(path)) {
+      in = Files.newInputStream(path);
+    } else {
+      in = CsvParse.class.getClassLoader().getResourceAsStream(path.toString().replace('\\', '/'));
+      if (in == null) {
+        throw new NoSuchFileException(path.toString());
+      }
+    }
+    if (isGzip(path)) {
+      try {
+        in = new GZIPInputStream(in, bufferSize);
+      } catch (IOException | RuntimeException e) {
+        // gzipのヘッダーが読めない場合も開いたファイルを閉じる
+        in.close();
+        throw e;
+      }
+    }
+    return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), bufferSize);
+  }
+
+  /**
+   * UTF-8でファイルに書き出すWriterを作成する. ファイル名が.gzで終わる場合はgzipで圧縮する.
+   *
+   * @param path       ファイルのパス
+   * @param bufferSize バッファのサイズ
+   */
+  static Writer newWriter(Path path, int bufferSize) throws IOException {
+    OutputStream out = Files.newOutputStream(path);
+    if (isGzip(path)) {
+      try {
+        out = new GZIPOutputStream(out, bufferSize);
+      } catch (IOException | RuntimeException e) {
+        out.close();
+        throw e;
+      }
+    }
+    return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), bufferSize);
+  }
+
+  private static boolean isGzip(Path path) {
+    Path fileName = path.getFileName();
+    return fileName != null && fileName.toString().endsWith(".gz");
+  }
+
+  /**
+   * 設定から項目名と状態項目名のペアを作成する.
+   */
+  static Map<String, String> toValuePairs(Config config) {
+    return config.getValuePairs().stream()
+        .collect(Collectors.toMap(Config.ValuePair::getItem, Config.ValuePair::getState));
+  }
+
+  /**
+   * 設定からtransformValues用の条件を作成する.
+   */
+  static String[] toTransformConditions(Config config) {
+    return new String[] { config.getCondition().getPattern(), config.getCondition().getReplacement() };
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package org.example;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * SqlSessionFactoryのデータソースに関するユーティリティ.
+ */
+final class DataSources {
+  private DataSources() {
+  }
+
+  /**
+   * 同時に使えるコネクションの最大数を返す. POOLEDと{@link MeteredPooledDataSourceFactory}の場合はmybatis-config.xmlのpoolMaximumActiveConnectionsとする.
+   *
+   * @return コネクションの最大数. 上限がわからない場合はInteger.MAX_VALUE
+   */
+  static int maxActiveConnections(SqlSessionFactory sqlSessionFactory) {
+    DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    if (dataSource instanceof MeteredDataSource) {
+      dataSource = ((MeteredDataSource) dataSource).getPool();
+    }
+    if (dataSource instanceof PooledDataSource) {
+      return ((PooledDataSource) dataSource).getPoolMaximumActiveConnections();
+    }
+    return Integer.MAX_VALUE;
+  }
+}
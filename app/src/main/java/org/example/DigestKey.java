@@ -0,0 +1,69 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * SHA-256のハッシュ値（32バイト）をMapのキーとして使うためのラッパー.
+ * 64文字の16進数文字列で持つ場合の半分以下のメモリで済む.
+ */
+final class DigestKey {
+  private final byte[] digest;
+  private final int hash;
+
+  private DigestKey(byte[] digest) {
+    this.digest = digest;
+    // ハッシュ値は一様なので先頭の4バイトをそのまま使う
+    this.hash = (digest[0] & 0xff) << 24 | (digest[1] & 0xff) << 16 | (digest[2] & 0xff) << 8 | (digest[3] & 0xff);
+  }
+
+  /**
+   * ハッシュ値のバイト列から作成する. バイト列はコピーしないので、呼び出し側で変更しないこと.
+   */
+  static DigestKey of(byte[] digest) {
+    if (digest.length != Sha256Hasher.HASH_LENGTH) {
+      throw new IllegalArgumentException("ハッシュ値の長さが不正です: " + digest.length);
+    }
+    return new DigestKey(digest);
+  }
+
+  /**
+   * 64文字の16進数文字列から作成する.
+   */
+  static DigestKey fromHex(String hex) {
+    if (hex.length() != Sha256Hasher.HASH_LENGTH * 2) {
+      throw new IllegalArgumentException("ハッシュ値の長さが不正です: " + hex);
+    }
+    byte[] digest = new byte[Sha256Hasher.HASH_LENGTH];
+    for (int i = 0; i < digest.length; i++) {
+      int high = Character.digit(hex.charAt(i * 2), 16);
+      int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+      if (high < 0 || low < 0) {
+        throw new IllegalArgumentException("16進数ではありません: " + hex);
+      }
+      digest[i] = (byte) (high << 4 | low);
+    }
+    return new DigestKey(digest);
+  }
+
+  /**
+   * 16進数文字列（小文字）で返す.
+   */
+  String toHex() {
+    return Sha256Hasher.toHex(digest);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof DigestKey && Arrays.equals(digest, ((DigestKey) obj).digest);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return toHex();
+  }
+}
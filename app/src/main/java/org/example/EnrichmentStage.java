@@ -0,0 +1,213 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * 複数のマスタをハッシュ結合してレコードに列を追加する関数.
+ * {@link Util#addGroupColumn}のITEM1とGROUPを固定せず、結合の定義（{@link Join}）を複数指定できる.
+ * レコードごとのMapのコピーは1回だけで、すべての結合を1パスで行う.
+ * マスタは読み込み後に変更しないため、複数のスレッドから同時に使える.
+ *
+ * <pre>
+ * EnrichmentStage enrich = EnrichmentStage.load(sqlSessionFactory, List.of(
+ *     new EnrichmentStage.Join("ITEM1", "T_GROUP_MASTER", "ITEM1", List.of("GROUP_NAME"), List.of("GROUP"),
+ *         EnrichmentStage.DefaultPolicy.USE_KEY)));
+ * transactions.map(enrich);
+ * </pre>
+ */
+public class EnrichmentStage implements Function<Map<String, String>, Map<String, String>> {
+  // 任意のマスタからキー列と値の列を取得する文
+  public static final String SELECT_MASTER_COLUMNS = "org.example.Mapper.selectMasterColumns";
+
+  /**
+   * マスタにキーがない場合に出力する値.
+   */
+  public enum DefaultPolicy {
+    // キーの値を出力する（Util.addGroupColumnと同じ）
+    USE_KEY,
+    // 空文字列を出力する
+    EMPTY,
+    // nullを出力する
+    NULL
+  }
+
+  /**
+   * 結合の定義.
+   */
+  public static final class Join {
+    private final String keyColumn;
+    private final String masterTable;
+    private final String masterKeyColumn;
+    private final List<String> valueColumns;
+    private final List<String> outputColumns;
+    private final DefaultPolicy defaultPolicy;
+
+    /**
+     * @param keyColumn       レコードのキーの列
+     * @param masterTable     マスタのテーブル名
+     * @param masterKeyColumn マスタのキーの列
+     * @param valueColumns    マスタから取得する列
+     * @param outputColumns   取得した値を出力するレコードの列（valueColumnsと同じ順序）
+     * @param defaultPolicy   マスタにキーがない場合に出力する値
+     */
+    public Join(String keyColumn, String masterTable, String masterKeyColumn, List<String> valueColumns,
+        List<String> outputColumns, DefaultPolicy defaultPolicy) {
+      if (valueColumns.isEmpty() || valueColumns.size() != outputColumns.size()) {
+        throw new IllegalArgumentException(
+            "取得する列と出力する列の数が一致しません: " + valueColumns + ", " + outputColumns);
+      }
+      this.keyColumn = Objects.requireNonNull(keyColumn);
+      this.masterTable = SqlIdentifiers.validate(masterTable);
+      this.masterKeyColumn = SqlIdentifiers.validate(masterKeyColumn);
+      valueColumns.forEach(SqlIdentifiers::validate);
+      this.valueColumns = List.copyOf(valueColumns);
+      this.outputColumns = List.copyOf(outputColumns);
+      this.defaultPolicy = Objects.requireNonNull(defaultPolicy);
+    }
+
+    public String getKeyColumn() {
+      return keyColumn;
+    }
+
+    public String getMasterTable() {
+      return masterTable;
+    }
+
+    public String getMasterKeyColumn() {
+      return masterKeyColumn;
+    }
+
+    public List<String> getValueColumns() {
+      return valueColumns;
+    }
+
+    public List<String> getOutputColumns() {
+      return outputColumns;
+    }
+
+    public DefaultPolicy getDefaultPolicy() {
+      return defaultPolicy;
+    }
+  }
+
+  /**
+   * マスタを読み込む関数. キーから値の列の配列（{@link Join#getValueColumns()}の順序）へのMapを返す.
+   */
+  @FunctionalInterface
+  public interface MasterLoader {
+    Map<String, String[]> load(Join join);
+  }
+
+  private final Join[] joins;
+  private final List<CompactStringMap<String[]>> masters;
+
+  private EnrichmentStage(List<Join> joins, List<Map<String, String[]>> masters) {
+    this.joins = joins.toArray(new Join[0]);
+    this.masters = new ArrayList<>();
+    for (Map<String, String[]> master : masters) {
+      this.masters.add(new CompactStringMap<>(master));
+    }
+  }
+
+  /**
+   * マスタをMyBatisで並列に読み込んで作成する. 並列数はマスタの数とコネクションプールの最大数の小さい方とする.
+   */
+  public static EnrichmentStage load(SqlSessionFactory sqlSessionFactory, List<Join> joins) {
+    int parallelism = Math.min(joins.size(), DataSources.maxActiveConnections(sqlSessionFactory));
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+    try {
+      return load(joins, join -> selectMaster(sqlSessionFactory, join), executor);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * マスタを指定した関数で並列に読み込んで作成する.
+   *
+   * @param joins    結合の定義
+   * @param loader   マスタを読み込む関数
+   * @param executor 読み込みを実行するExecutor
+   */
+  public static EnrichmentStage load(List<Join> joins, MasterLoader loader, ExecutorService executor) {
+    List<CompletableFuture<Map<String, String[]>>> futures = new ArrayList<>();
+    for (Join join : joins) {
+      futures.add(CompletableFuture.supplyAsync(() -> loader.load(join), executor));
+    }
+    List<Map<String, String[]>> masters = new ArrayList<>();
+    try {
+      for (CompletableFuture<Map<String, String[]>> future : futures) {
+        masters.add(future.join());
+      }
+    } catch (CompletionException e) {
+      futures.forEach(future -> future.cancel(true));
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+    return new EnrichmentStage(joins, masters);
+  }
+
+  /**
+   * レコードにすべての結合の列を追加したレコードを返す.
+   */
+  @Override
+  public Map<String, String> apply(Map<String, String> record) {
+    // オリジナルのレコードに列を追加するため、変更可能なMapを作成
+    Map<String, String> enriched = new HashMap<>(record);
+    for (int i = 0; i < joins.length; i++) {
+      Join join = joins[i];
+      // キーは結合前のレコードから取得する
+      String key = record.get(join.keyColumn);
+      String[] values = key != null ? masters.get(i).get(key) : null;
+      List<String> outputColumns = join.outputColumns;
+      for (int j = 0; j < outputColumns.size(); j++) {
+        enriched.put(outputColumns.get(j), values != null ? values[j] : defaultValue(join.defaultPolicy, key));
+      }
+    }
+    return enriched;
+  }
+
+  private static String defaultValue(DefaultPolicy defaultPolicy, String key) {
+    switch (defaultPolicy) {
+      case USE_KEY:
+        return key;
+      case EMPTY:
+        return "";
+      default:
+        return null;
+    }
+  }
+
+  private static Map<String, String[]> selectMaster(SqlSessionFactory sqlSessionFactory, Join join) {
+    Map<String, Object> parameter = Map.of("table", join.masterTable, "keyColumn", join.masterKeyColumn,
+        "valueColumns", join.valueColumns);
+    Map<String, String[]> master = new HashMap<>();
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      // 1行ずつ受け取り、Listに溜めない
+      session.select(SELECT_MASTER_COLUMNS, parameter, context -> {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> row = (Map<String, Object>) context.getResultObject();
+        String[] values = new String[join.valueColumns.size()];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = Objects.toString(row.get("V" + i), null);
+        }
+        master.put(Objects.toString(row.get("K"), null), values);
+      });
+    }
+    return master;
+  }
+}
@@ -41,9 +41,10 @@ public class FunctionalJsonRegexMatcher {
             System.out.println("Patterns: " + Arrays.toString(regexPattern.getPatterns()));
         }
 
-        // 正規表現テスト
+        // 正規表現テスト（パターンは一度だけコンパイルする）
+        CompiledRegexMatcher compiledRegexMatcher = new CompiledRegexMatcher(regexPatterns);
         var matchedResults = Arrays.stream(transactions)
-                .map(transaction -> new String[] { transaction, regexMatcher.apply(transaction, regexPatterns) })
+                .map(transaction -> new String[] { transaction, compiledRegexMatcher.match(transaction) })
                 .toList();
 
         // 結果表示
@@ -0,0 +1,178 @@
+package org.example;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * T_GROUP_MASTERをメモリに読み込んでおくグループ化マスタのキャッシュ.
+ * 読み取り専用のMapとして{@link Util#addGroupColumn}などにそのまま渡せる.
+ * 再読み込みは新しい{@link CompactStringMap}を作成してから参照を差し替えるため、読み込み中も参照は止まらない.
+ * 1回の参照の中では同じ時点の内容を使う.
+ *
+ * <pre>
+ * GroupMasterCache groupMaster = GroupMasterCache.load(sqlSessionFactory);
+ * transactions.map(Util.addGroupColumn.apply(groupMaster));
+ * </pre>
+ */
+public class GroupMasterCache extends AbstractMap<String, String> {
+  // グループ化マスタを取得する文
+  public static final String SELECT_GROUP_MASTER = "org.example.Mapper.selectGroupMaster";
+
+  private final Supplier<Map<String, String>> loader;
+  private volatile CompactStringMap<String> snapshot;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * キャッシュを作成し、読み込む.
+   *
+   * @param loader グループ化マスタ（ITEM1とGROUP_NAMEのMap）を読み込む関数
+   */
+  public GroupMasterCache(Supplier<Map<String, String>> loader) {
+    this.loader = loader;
+    refresh();
+  }
+
+  /**
+   * T_GROUP_MASTERからキャッシュを作成する.
+   */
+  public static GroupMasterCache load(SqlSessionFactory sqlSessionFactory) {
+    return new GroupMasterCache(() -> selectGroupMaster(sqlSessionFactory));
+  }
+
+  /**
+   * 読み込み直して差し替える. 読み込みに失敗した場合は例外となり、それまでの内容を使い続ける.
+   *
+   * @return 読み込んだ件数
+   */
+  public int refresh() {
+    CompactStringMap<String> loaded = new CompactStringMap<>(loader.get());
+    snapshot = loaded;
+    return loaded.size();
+  }
+
+  /**
+   * 一定の間隔で読み込み直す. 読み込みに失敗した場合はエラーを出力し、それまでの内容を使い続ける.
+   *
+   * @param scheduler 読み込みを実行するスケジューラ
+   * @param period    間隔
+   * @param unit      間隔の単位
+   * @return スケジュールした処理. 止める場合はcancelする
+   */
+  public ScheduledFuture<?> scheduleRefresh(ScheduledExecutorService scheduler, long period, TimeUnit unit) {
+    return scheduler.scheduleAtFixedRate(() -> {
+      try {
+        refresh();
+      } catch (RuntimeException e) {
+        System.err.println("グループ化マスタの読み込み中にエラーが発生しました: " + e.getMessage());
+      }
+    }, period, period, unit);
+  }
+
+  /**
+   * キーが見つかった参照の回数を返す.
+   */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * キーが見つからなかった参照の回数を返す.
+   */
+  public long misses() {
+    return misses.sum();
+  }
+
+  @Override
+  public String get(Object key) {
+    return getOrDefault(key, null);
+  }
+
+  @Override
+  public String getOrDefault(Object key, String defaultValue) {
+    CompactStringMap<String> current = snapshot;
+    int slot = key instanceof String ? current.indexOf((String) key) : -1;
+    if (slot < 0) {
+      misses.increment();
+      return defaultValue;
+    }
+    hits.increment();
+    return current.valueAt(slot);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof String && snapshot.containsKey((String) key);
+  }
+
+  @Override
+  public int size() {
+    return snapshot.size();
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    CompactStringMap<String> current = snapshot;
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, String>> iterator() {
+        return new Iterator<>() {
+          private int slot = next(0);
+
+          @Override
+          public boolean hasNext() {
+            return slot < current.capacity();
+          }
+
+          @Override
+          public Entry<String, String> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            Entry<String, String> entry = new SimpleImmutableEntry<>(current.keyAt(slot), current.valueAt(slot));
+            slot = next(slot + 1);
+            return entry;
+          }
+
+          private int next(int from) {
+            while (from < current.capacity() && current.keyAt(from) == null) {
+              from++;
+            }
+            return from;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return current.size();
+      }
+    };
+  }
+
+  private static Map<String, String> selectGroupMaster(SqlSessionFactory sqlSessionFactory) {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> records = session.selectList(SELECT_GROUP_MASTER);
+      Map<String, String> groupMaster = new HashMap<>();
+      for (Map<String, Object> record : records) {
+        groupMaster.put((String) record.get("ITEM1"), (String) record.get("GROUP_NAME"));
+      }
+      return groupMaster;
+    }
+  }
+}
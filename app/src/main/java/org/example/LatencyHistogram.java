@@ -0,0 +1,112 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ナノ秒の所要時間を2のべき乗の幅のバケットで数えるヒストグラム.
+ * 記録はロックを取らずに配列の要素を加算するだけなので、複数のスレッドから頻繁に呼び出してよい.
+ * パーセンタイルはバケットの上限で返すため、実際の値の最大2倍まで大きく見積もる.
+ */
+public final class LatencyHistogram {
+  // バケットの数. i番目のバケットは[2^(i-1), 2^i)ナノ秒を数える（0番目は0ナノ秒）
+  static final int BUCKETS = 64;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * 所要時間を記録する. 負の値は0として記録する.
+   *
+   * @param nanos 所要時間（ナノ秒）
+   */
+  public void record(long nanos) {
+    long value = Math.max(nanos, 0);
+    buckets.incrementAndGet(bucketOf(value));
+    count.increment();
+    total.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * 記録した件数を返す.
+   */
+  public long count() {
+    return count.sum();
+  }
+
+  /**
+   * 記録した所要時間の合計（ナノ秒）を返す.
+   */
+  public long totalNanos() {
+    return total.sum();
+  }
+
+  /**
+   * 記録した所要時間の最大（ナノ秒）を返す.
+   */
+  public long maxNanos() {
+    return max.get();
+  }
+
+  /**
+   * 記録した所要時間の平均（ナノ秒）を返す. 記録がない場合は0.
+   */
+  public double meanNanos() {
+    long n = count();
+    return n == 0 ? 0 : (double) totalNanos() / n;
+  }
+
+  /**
+   * パーセンタイルの所要時間（ナノ秒）を返す. 該当するバケットの上限と最大値の小さい方とする.
+   *
+   * @param percentile 0から100のパーセンタイル
+   * @return 所要時間. 記録がない場合は0
+   */
+  public long percentileNanos(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("パーセンタイルは0から100を指定してください: " + percentile);
+    }
+    long[] snapshot = new long[BUCKETS];
+    long n = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = buckets.get(i);
+      n += snapshot[i];
+    }
+    if (n == 0) {
+      return 0;
+    }
+    long rank = Math.max((long) Math.ceil(n * percentile / 100), 1);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(upperBound(i), maxNanos());
+      }
+    }
+    return maxNanos();
+  }
+
+  /**
+   * 記録をすべて消す. 記録中に呼び出した場合、その記録は一部だけ残ることがある.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    count.reset();
+    total.reset();
+    max.reset();
+  }
+
+  static int bucketOf(long nanos) {
+    return Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+  }
+
+  private static long upperBound(int bucket) {
+    return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+}
@@ -0,0 +1,374 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文字クラスと量指定子を並べただけの正規表現（例: "^[0-9]+$", "A\\d{2,4}.*"）を、
+ * バックトラックせずに入力の長さに比例する時間で判定するパターン.
+ * 正規表現を「何個目の要素まで読んだか」を状態とするNFAに変換し、状態の集合をlongのビットで持って1文字ずつ進める.
+ * 判定結果は{@code Pattern.compile(pattern).matcher(input).matches()}と同じになる.
+ * 選択(|)、グループ、後方参照、先読み、フラグ、最短一致・強欲な量指定子などは扱わない.
+ */
+final class LinearPattern {
+  // 状態の最大数. 状態iは「i個の要素まで読んだ」を表し、最後の状態（要素の数）が受理状態となる
+  static final int MAX_STATES = Long.SIZE;
+
+  // 最大のコードポイント
+  private static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+
+  // 要素の文字クラス（[from, to]の範囲を並べたもの）
+  private final int[][] classes;
+  // 0回以上読む要素（*）
+  private final long starMask;
+  // 読まずに次へ進める要素（?と*）
+  private final long skipMask;
+  // ASCIIの文字ごとに、その文字を読める要素
+  private final long[] asciiMasks = new long[128];
+  private final long acceptMask;
+  private final long initial;
+
+  private LinearPattern(List<int[]> classes, long starMask, long skipMask) {
+    this.classes = classes.toArray(new int[0][]);
+    this.starMask = starMask;
+    this.skipMask = skipMask;
+    for (int c = 0; c < asciiMasks.length; c++) {
+      asciiMasks[c] = readableBy(c);
+    }
+    this.acceptMask = 1L << this.classes.length;
+    this.initial = closure(1L);
+  }
+
+  /**
+   * 正規表現を解析する.
+   *
+   * @param pattern 正規表現
+   * @return 線形時間で判定できる場合はそのパターン、できない場合はnull
+   */
+  static LinearPattern parse(String pattern) {
+    Parser parser = new Parser(pattern);
+    return parser.parse() ? new LinearPattern(parser.classes, parser.starMask, parser.skipMask) : null;
+  }
+
+  /**
+   * 入力全体がパターンに一致するかを判定する.
+   */
+  boolean matches(CharSequence input) {
+    long states = initial;
+    for (int i = 0; i < input.length() && states != 0;) {
+      int c = Character.codePointAt(input, i);
+      i += Character.charCount(c);
+      long readable = states & (c < 128 ? asciiMasks[c] : readableBy(c));
+      // *の要素は読んだ後も同じ状態に留まり、それ以外は次の状態に進む
+      states = closure(((readable & ~starMask) << 1) | (readable & starMask));
+    }
+    return (states & acceptMask) != 0;
+  }
+
+  /**
+   * 文字を読める要素のビットを返す.
+   */
+  private long readableBy(int c) {
+    long mask = 0;
+    for (int i = 0; i < classes.length; i++) {
+      if (contains(classes[i], c)) {
+        mask |= 1L << i;
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * ?と*の要素を読まずに次の状態に進めた状態を加える.
+   */
+  private long closure(long states) {
+    while (true) {
+      long next = states | ((states & skipMask) << 1);
+      if (next == states) {
+        return states;
+      }
+      states = next;
+    }
+  }
+
+  private static boolean contains(int[] ranges, int c) {
+    for (int i = 0; i < ranges.length; i += 2) {
+      if (c >= ranges[i] && c <= ranges[i + 1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 正規表現を要素の並びに変換する. 扱えない構文があればfalseを返す.
+   */
+  private static final class Parser {
+    private final String pattern;
+    private int position;
+    private final List<int[]> classes = new ArrayList<>();
+    private long starMask;
+    private long skipMask;
+
+    Parser(String pattern) {
+      this.pattern = pattern;
+    }
+
+    boolean parse() {
+      int end = pattern.length();
+      // matchesは入力全体と比較するので、先頭の^と末尾の$は意味を持たない
+      if (pattern.startsWith("^")) {
+        position = 1;
+      }
+      if (end > position && pattern.charAt(end - 1) == '$' && !isEscaped(end - 1)) {
+        end--;
+      }
+      while (position < end) {
+        int[] ranges = parseAtom(end);
+        if (ranges == null || !parseQuantifier(ranges, end)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * 1つの要素（文字、エスケープ、.、文字クラス）を解析する.
+     */
+    private int[] parseAtom(int end) {
+      int c = pattern.codePointAt(position);
+      position += Character.charCount(c);
+      switch (c) {
+        case '.':
+          // 行区切り文字以外
+          return complement(new int[] { '\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029 });
+        case '[':
+          return parseClass(end);
+        case '\\':
+          return parseEscape(end);
+        case '(':
+        case ')':
+        case '|':
+        case '{':
+        case '}':
+        case '*':
+        case '+':
+        case '?':
+        case '^':
+        case '$':
+        case ']':
+          return null;
+        default:
+          return new int[] { c, c };
+      }
+    }
+
+    /**
+     * [...]の文字クラスを解析する. 範囲、否定、\d\w\sなどのエスケープを扱い、入れ子や&&は扱わない.
+     */
+    private int[] parseClass(int end) {
+      boolean negate = position < end && pattern.charAt(position) == '^';
+      if (negate) {
+        position++;
+      }
+      List<int[]> parts = new ArrayList<>();
+      boolean first = true;
+      while (true) {
+        if (position >= end) {
+          return null;
+        }
+        int c = pattern.codePointAt(position);
+        if (c == ']' && !first) {
+          position++;
+          break;
+        }
+        if (c == '[' || c == ']' || (c == '&' && pattern.startsWith("&&", position))) {
+          return null;
+        }
+        first = false;
+        position += Character.charCount(c);
+        int[] from;
+        if (c == '\\') {
+          from = parseEscape(end);
+          if (from == null) {
+            return null;
+          }
+        } else {
+          from = new int[] { c, c };
+        }
+        // a-zの範囲. 末尾の-はリテラル
+        if (from.length == 2 && from[0] == from[1] && position + 1 < end && pattern.charAt(position) == '-'
+            && pattern.charAt(position + 1) != ']') {
+          position++;
+          int to = pattern.codePointAt(position);
+          if (to == '[' || to == '\\') {
+            return null;
+          }
+          position += Character.charCount(to);
+          if (to < from[0]) {
+            return null;
+          }
+          from = new int[] { from[0], to };
+        }
+        parts.add(from);
+      }
+      int[] ranges = union(parts);
+      return negate ? complement(ranges) : ranges;
+    }
+
+    /**
+     * \の後ろを解析する. \d\w\sとその否定、制御文字、英数字以外の文字のエスケープを扱う.
+     */
+    private int[] parseEscape(int end) {
+      if (position >= end) {
+        return null;
+      }
+      int c = pattern.codePointAt(position);
+      position += Character.charCount(c);
+      switch (c) {
+        case 'd':
+          return new int[] { '0', '9' };
+        case 'D':
+          return complement(new int[] { '0', '9' });
+        case 'w':
+          return new int[] { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' };
+        case 'W':
+          return complement(new int[] { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' });
+        case 's':
+          return new int[] { '\t', '\r', ' ', ' ' };
+        case 'S':
+          return complement(new int[] { '\t', '\r', ' ', ' ' });
+        case 't':
+          return new int[] { '\t', '\t' };
+        case 'n':
+          return new int[] { '\n', '\n' };
+        case 'r':
+          return new int[] { '\r', '\r' };
+        case 'f':
+          return new int[] { '\f', '\f' };
+        default:
+          // 英数字のエスケープ（\b、\p、\1など）は扱わない
+          if (c < 128 && Character.isLetterOrDigit(c)) {
+            return null;
+          }
+          return new int[] { c, c };
+      }
+    }
+
+    /**
+     * 要素の後ろの量指定子を解析し、要素を必要な数だけ並べる.
+     */
+    private boolean parseQuantifier(int[] ranges, int end) {
+      int min = 1;
+      int max = 1;
+      if (position < end) {
+        char c = pattern.charAt(position);
+        if (c == '*' || c == '+' || c == '?') {
+          position++;
+          min = c == '+' ? 1 : 0;
+          max = c == '?' ? 1 : -1;
+        } else if (c == '{') {
+          int close = pattern.indexOf('}', position);
+          if (close < 0 || close >= end) {
+            return false;
+          }
+          String[] bounds = pattern.substring(position + 1, close).split(",", -1);
+          // Integer.parseIntは符号（{+2}など）を受け付けるが、Patternでは構文エラーとなる
+          for (String bound : bounds) {
+            if (!bound.chars().allMatch(ch -> ch >= '0' && ch <= '9')) {
+              return false;
+            }
+          }
+          try {
+            min = Integer.parseInt(bounds[0]);
+            max = bounds.length == 1 ? min : bounds[1].isEmpty() ? -1 : Integer.parseInt(bounds[1]);
+          } catch (NumberFormatException e) {
+            return false;
+          }
+          if (bounds.length > 2 || min < 0 || (max >= 0 && max < min)) {
+            return false;
+          }
+          position = close + 1;
+        }
+        // 最短一致(?)と強欲(+)の量指定子は扱わない
+        if (min != 1 || max != 1) {
+          if (position < end && (pattern.charAt(position) == '?' || pattern.charAt(position) == '+')) {
+            return false;
+          }
+        }
+      }
+      int optional = max < 0 ? 0 : max - min;
+      if (classes.size() + min + optional + (max < 0 ? 1 : 0) >= MAX_STATES) {
+        return false;
+      }
+      for (int i = 0; i < min; i++) {
+        classes.add(ranges);
+      }
+      for (int i = 0; i < optional; i++) {
+        skipMask |= 1L << classes.size();
+        classes.add(ranges);
+      }
+      if (max < 0) {
+        starMask |= 1L << classes.size();
+        skipMask |= 1L << classes.size();
+        classes.add(ranges);
+      }
+      return true;
+    }
+
+    private boolean isEscaped(int index) {
+      int backslashes = 0;
+      for (int i = index - 1; i >= 0 && pattern.charAt(i) == '\\'; i--) {
+        backslashes++;
+      }
+      return backslashes % 2 == 1;
+    }
+  }
+
+  /**
+   * 範囲の和を、重ならない範囲を昇順に並べたものにする.
+   */
+  private static int[] union(List<int[]> parts) {
+    List<int[]> ranges = new ArrayList<>();
+    for (int[] part : parts) {
+      for (int i = 0; i < part.length; i += 2) {
+        ranges.add(new int[] { part[i], part[i + 1] });
+      }
+    }
+    ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+    List<int[]> merged = new ArrayList<>();
+    for (int[] range : ranges) {
+      int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+      if (last != null && range[0] <= last[1] + 1) {
+        last[1] = Math.max(last[1], range[1]);
+      } else {
+        merged.add(range);
+      }
+    }
+    int[] result = new int[merged.size() * 2];
+    for (int i = 0; i < merged.size(); i++) {
+      result[i * 2] = merged.get(i)[0];
+      result[i * 2 + 1] = merged.get(i)[1];
+    }
+    return result;
+  }
+
+  /**
+   * 範囲の補集合を返す.
+   */
+  private static int[] complement(int[] ranges) {
+    int[] sorted = union(List.of(ranges));
+    List<int[]> result = new ArrayList<>();
+    int next = 0;
+    for (int i = 0; i < sorted.length; i += 2) {
+      if (sorted[i] > next) {
+        result.add(new int[] { next, sorted[i] - 1 });
+      }
+      next = sorted[i + 1] + 1;
+    }
+    if (next <= MAX_CODE_POINT) {
+      result.add(new int[] { next, MAX_CODE_POINT });
+    }
+    return union(result);
+  }
+}
@@ -0,0 +1,124 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * リテラルと位置指定子(^, $)だけからなる正規表現を、文字列比較で判定するパターン.
+ * 例えば "^X|X$" は「Xで始まる、またはXで終わる」なので、正規表現エンジンを使わずに
+ * {@link String#startsWith}や末尾の比較で判定できる.
+ * 判定結果は{@code Pattern.compile(pattern).matcher(input).find()}と同じになる.
+ */
+final class LiteralPattern {
+    // 正規表現のメタ文字
+    private static final String META_CHARACTERS = "\\.[]{}()*+?^$|";
+
+    private final Branch[] branches;
+
+    private LiteralPattern(Branch[] branches) {
+        this.branches = branches;
+    }
+
+    /**
+     * 正規表現を解析する.
+     *
+     * @param pattern 正規表現
+     * @return 文字列比較で判定できる場合はそのパターン、できない場合はnull
+     */
+    static LiteralPattern parse(String pattern) {
+        List<Branch> branches = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean startAnchor = false;
+        boolean endAnchor = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (endAnchor && c != '|') {
+                // $の後ろに続く文字がある
+                return null;
+            }
+            if (c == '|') {
+                branches.add(new Branch(literal.toString(), startAnchor, endAnchor));
+                literal.setLength(0);
+                startAnchor = false;
+                endAnchor = false;
+            } else if (c == '^' && literal.length() == 0 && !startAnchor) {
+                startAnchor = true;
+            } else if (c == '$') {
+                endAnchor = true;
+            } else if (c == '\\') {
+                // 英数字以外のエスケープはその文字自身を表す
+                if (i + 1 >= pattern.length() || Character.isLetterOrDigit(pattern.charAt(i + 1))) {
+                    return null;
+                }
+                literal.append(pattern.charAt(++i));
+            } else if (META_CHARACTERS.indexOf(c) >= 0 || Character.isSurrogate(c)) {
+                // サロゲートペアは正規表現ではコードポイント単位で比較されるため対象外とする
+                return null;
+            } else {
+                literal.append(c);
+            }
+        }
+        branches.add(new Branch(literal.toString(), startAnchor, endAnchor));
+        return new LiteralPattern(branches.toArray(new Branch[0]));
+    }
+
+    /**
+     * 入力のいずれかの位置でパターンにマッチするかを判定する.
+     *
+     * @param input 入力文字列
+     * @return マッチする場合はtrue
+     */
+    boolean find(String input) {
+        for (Branch branch : branches) {
+            if (branch.find(input)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Branch {
+        private final String literal;
+        private final boolean startAnchor;
+        private final boolean endAnchor;
+
+        Branch(String literal, boolean startAnchor, boolean endAnchor) {
+            this.literal = literal;
+            this.startAnchor = startAnchor;
+            this.endAnchor = endAnchor;
+        }
+
+        boolean find(String input) {
+            if (!endAnchor) {
+                return startAnchor ? input.startsWith(literal) : input.contains(literal);
+            }
+            // $は入力の末尾のほか、末尾の行終端文字の直前にもマッチする
+            int end = input.length();
+            if (endsAt(input, end)) {
+                return true;
+            }
+            if (end >= 1 && isFinalLineTerminator(input, end) && endsAt(input, end - 1)) {
+                return true;
+            }
+            return end >= 2 && input.charAt(end - 2) == '\r' && input.charAt(end - 1) == '\n'
+                    && endsAt(input, end - 2);
+        }
+
+        private boolean endsAt(String input, int index) {
+            int start = index - literal.length();
+            if (start < 0 || (startAnchor && start != 0)) {
+                return false;
+            }
+            return input.startsWith(literal, start);
+        }
+
+        private static boolean isFinalLineTerminator(String input, int end) {
+            char c = input.charAt(end - 1);
+            if (c == '\n') {
+                // \r\nの間にはマッチしない
+                return end < 2 || input.charAt(end - 2) != '\r';
+            }
+            return c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+        }
+    }
+}
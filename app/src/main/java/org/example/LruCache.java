@@ -0,0 +1,98 @@
+package org.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 最大件数を超えると最も長く参照されていないエントリを削除するキャッシュ.
+ * 値の計算はロックの外で行うため、同じキーの値が同時に複数回計算されることがある.
+ * 計算結果がnullの場合はキャッシュしない.
+ * このクラスはスレッドセーフである.
+ *
+ * @param <K> キーの型
+ * @param <V> 値の型
+ */
+public final class LruCache<K, V> {
+  private final int maxEntries;
+  private final LinkedHashMap<K, V> entries;
+
+  /**
+   * @param maxEntries 最大件数
+   */
+  public LruCache(int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("最大件数は1以上を指定してください: " + maxEntries);
+    }
+    this.maxEntries = maxEntries;
+    // アクセス順のLinkedHashMapで、最大件数を超えたら先頭（最も古い）を削除する
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > LruCache.this.maxEntries;
+      }
+    };
+  }
+
+  /**
+   * 値を取得する.
+   *
+   * @return 値. キャッシュにない場合はnull
+   */
+  public synchronized V get(K key) {
+    return entries.get(key);
+  }
+
+  /**
+   * 値を登録する.
+   */
+  public synchronized void put(K key, V value) {
+    entries.put(key, value);
+  }
+
+  /**
+   * 値を取得し、キャッシュにない場合は計算して登録する.
+   *
+   * @param key             キー
+   * @param mappingFunction 値を計算する関数
+   * @return 値
+   */
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+    V value = get(key);
+    if (value == null) {
+      value = mappingFunction.apply(key);
+      if (value != null) {
+        put(key, value);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * 値を削除する.
+   */
+  public synchronized void remove(K key) {
+    entries.remove(key);
+  }
+
+  /**
+   * すべての値を削除する.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * 現在の件数を返す.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * 最大件数を返す.
+   */
+  public int maxEntries() {
+    return maxEntries;
+  }
+}
@@ -0,0 +1,304 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * ファイルをメモリマップし、UTF-8のバイト列のままRFC 4180形式のCSVを走査するリーダー.
+ * commons-csvのようにすべてのフィールドを文字列にするのではなく、フィールドの位置だけを記録しておき、
+ * {@link #field(int)}で参照されたフィールドだけを文字列にデコードする.
+ * 空行はcommons-csvの{@code CSVFormat.DEFAULT}と同じく読み飛ばす.
+ * このクラスはスレッドセーフではない.
+ */
+class MappedCsvReader implements Closeable {
+  // 一度にマップする最大のバイト数
+  static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+  // 行がウィンドウの終わりを超えていることを表す
+  private static final int NEED_MORE = -1;
+
+  private final FileChannel channel;
+  private final long fileSize;
+  private final int windowSize;
+
+  // 現在マップしているウィンドウ
+  private MappedByteBuffer window;
+  private long windowStart;
+  private int windowLimit;
+
+  // 次の行の開始位置（ウィンドウ内の相対位置）
+  private int position;
+
+  // 現在の行
+  private long rowStart;
+  private long rowContentEnd;
+  private long rowEnd;
+  private int fieldCount;
+  private int[] fieldStarts = new int[16];
+  private int[] fieldEnds = new int[16];
+  private boolean[] fieldQuoted = new boolean[16];
+  private String[] decoded = new String[16];
+
+  private byte[] scratch = new byte[256];
+
+  MappedCsvReader(Path path) throws IOException {
+    this(path, DEFAULT_WINDOW_SIZE);
+  }
+
+  MappedCsvReader(Path path, int windowSize) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.fileSize = channel.size();
+    this.windowSize = windowSize;
+    map(0, (int) Math.min(windowSize, fileSize));
+  }
+
+  /**
+   * 次の行に進む.
+   *
+   * @return 行がある場合はtrue、ファイルの終わりに達した場合はfalse
+   * @throws IOException 読み込みに失敗した場合、またはCSVの形式が不正な場合
+   */
+  boolean next() throws IOException {
+    while (true) {
+      int result = parseRow(position);
+      if (result != NEED_MORE) {
+        return result > 0;
+      }
+      // 行がウィンドウに収まらないので、行の先頭からマップし直す
+      long start = windowStart + position;
+      long remaining = fileSize - start;
+      int size = (int) Math.min(windowSize, remaining);
+      if (start == windowStart) {
+        if (windowLimit >= Integer.MAX_VALUE - 8) {
+          throw new IOException("行が大きすぎます: " + start);
+        }
+        size = (int) Math.min(Math.max((long) windowLimit * 2, 1), Math.min(remaining, Integer.MAX_VALUE - 8));
+      }
+      map(start, size);
+    }
+  }
+
+  /**
+   * 現在の行のフィールド数を返す.
+   */
+  int fieldCount() {
+    return fieldCount;
+  }
+
+  /**
+   * フィールドを文字列にデコードして返す. デコード結果は行の中でキャッシュする.
+   *
+   * @param index フィールドの番号
+   * @return フィールドの値. フィールドがない場合はnull
+   */
+  String field(int index) {
+    if (index >= fieldCount) {
+      return null;
+    }
+    String value = decoded[index];
+    if (value == null) {
+      value = decode(index);
+      decoded[index] = value;
+    }
+    return value;
+  }
+
+  /**
+   * フィールドの元のバイト列（クォートを含む）を返す.
+   *
+   * @param index フィールドの番号
+   * @return フィールドのバイト列のスライス
+   */
+  ByteBuffer rawField(int index) {
+    return window.slice(fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+  }
+
+  /**
+   * 現在の行の改行コードのバイト列を返す. ファイルの最後の行で改行がない場合は空となる.
+   */
+  ByteBuffer rawLineTerminator() {
+    return window.slice((int) (rowContentEnd - windowStart), (int) (rowEnd - rowContentEnd));
+  }
+
+  /**
+   * ファイル内の範囲[from, to)のバイト列を返す.
+   *
+   * @return バイト列のスライス. 範囲が現在のウィンドウに収まらない場合はnull
+   */
+  ByteBuffer raw(long from, long to) {
+    if (from < windowStart || to > windowStart + windowLimit) {
+      return null;
+    }
+    return window.slice((int) (from - windowStart), (int) (to - from));
+  }
+
+  /**
+   * 現在の行の開始位置（ファイル内の絶対位置）を返す.
+   */
+  long rowStart() {
+    return rowStart;
+  }
+
+  /**
+   * 現在の行の終了位置（改行コードを含む、ファイル内の絶対位置）を返す.
+   */
+  long rowEnd() {
+    return rowEnd;
+  }
+
+  /**
+   * ファイルのバイト数を返す.
+   */
+  long fileSize() {
+    return fileSize;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void map(long start, int size) throws IOException {
+    window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    windowStart = start;
+    windowLimit = size;
+    position = 0;
+  }
+
+  /**
+   * positionから1行を走査する.
+   *
+   * @return 行がある場合は1、ファイルの終わりの場合は0、行がウィンドウに収まらない場合はNEED_MORE
+   */
+  private int parseRow(int p) throws IOException {
+    boolean atEof = windowStart + windowLimit == fileSize;
+    // 空行を読み飛ばす
+    while (p < windowLimit && (window.get(p) == '\n' || window.get(p) == '\r')) {
+      p++;
+    }
+    if (p >= windowLimit) {
+      if (atEof) {
+        position = p;
+        return 0;
+      }
+      position = p;
+      return NEED_MORE;
+    }
+
+    int start = p;
+    int count = 0;
+    while (true) {
+      int fieldStart = p;
+      boolean quoted = p < windowLimit && window.get(p) == '"';
+      if (quoted) {
+        p++;
+        while (true) {
+          if (p >= windowLimit) {
+            if (atEof) {
+              throw new IOException("クォートが閉じられていません: " + (windowStart + fieldStart));
+            }
+            return NEED_MORE;
+          }
+          if (window.get(p) == '"') {
+            if (p + 1 >= windowLimit && !atEof) {
+              return NEED_MORE;
+            }
+            if (p + 1 < windowLimit && window.get(p + 1) == '"') {
+              p += 2;
+              continue;
+            }
+            p++;
+            break;
+          }
+          p++;
+        }
+      } else {
+        while (p < windowLimit) {
+          byte b = window.get(p);
+          if (b == ',' || b == '\r' || b == '\n') {
+            break;
+          }
+          p++;
+        }
+        if (p >= windowLimit && !atEof) {
+          return NEED_MORE;
+        }
+      }
+      count = addField(count, fieldStart, p, quoted);
+
+      if (p >= windowLimit) {
+        return endRow(start, count, p, p);
+      }
+      byte b = window.get(p);
+      if (b == ',') {
+        p++;
+      } else if (b == '\n') {
+        return endRow(start, count, p, p + 1);
+      } else if (b == '\r') {
+        if (p + 1 >= windowLimit && !atEof) {
+          return NEED_MORE;
+        }
+        return endRow(start, count, p, p + 1 < windowLimit && window.get(p + 1) == '\n' ? p + 2 : p + 1);
+      } else {
+        throw new IOException("クォートとカンマの間に不正な文字があります: " + (windowStart + p));
+      }
+    }
+  }
+
+  private int addField(int index, int start, int end, boolean quoted) {
+    if (index == fieldStarts.length) {
+      int length = index * 2;
+      fieldStarts = Arrays.copyOf(fieldStarts, length);
+      fieldEnds = Arrays.copyOf(fieldEnds, length);
+      fieldQuoted = Arrays.copyOf(fieldQuoted, length);
+      decoded = new String[length];
+    }
+    fieldStarts[index] = start;
+    fieldEnds[index] = end;
+    fieldQuoted[index] = quoted;
+    decoded[index] = null;
+    return index + 1;
+  }
+
+  private int endRow(int start, int count, int contentEnd, int end) {
+    fieldCount = count;
+    rowStart = windowStart + start;
+    rowContentEnd = windowStart + contentEnd;
+    rowEnd = windowStart + end;
+    position = end;
+    return 1;
+  }
+
+  private String decode(int index) {
+    int start = fieldStarts[index];
+    int end = fieldEnds[index];
+    if (!fieldQuoted[index]) {
+      return decode(start, end, false);
+    }
+    // 前後のクォートを除き、エスケープされたクォート("")を1つにする
+    return decode(start + 1, end - 1, true);
+  }
+
+  private String decode(int start, int end, boolean unescape) {
+    int length = end - start;
+    if (scratch.length < length) {
+      scratch = new byte[Math.max(length, scratch.length * 2)];
+    }
+    int size = 0;
+    for (int p = start; p < end; p++) {
+      byte b = window.get(p);
+      scratch[size++] = b;
+      if (unescape && b == '"') {
+        p++;
+      }
+    }
+    return new String(scratch, 0, size, StandardCharsets.UTF_8);
+  }
+}
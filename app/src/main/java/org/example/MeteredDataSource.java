@@ -0,0 +1,170 @@
+package org.example;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.pooled.PoolState;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * MyBatisのPooledDataSourceのコネクションの取得を計測するデータソース.
+ * 取得の回数と、取得にかかった時間（プールが空くまでの待ち時間を含む）のヒストグラムを記録する.
+ * 並列に読み書きするクラスの並列数やバッチの大きさを、実際の待ち時間を見て決めるために使う.
+ * mybatis-config.xmlでは{@link MeteredPooledDataSourceFactory}で作成する.
+ *
+ * <pre>
+ * MeteredDataSource.of(sqlSessionFactory).ifPresent(pool -&gt; System.out.println(pool.snapshot()));
+ * </pre>
+ */
+public class MeteredDataSource implements DataSource {
+  private final PooledDataSource pool;
+  private final LongAdder checkouts = new LongAdder();
+  private final LatencyHistogram waitTime = new LatencyHistogram();
+
+  /**
+   * @param pool 計測するコネクションプール
+   */
+  public MeteredDataSource(PooledDataSource pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * SqlSessionFactoryのデータソースが計測しているものであれば返す.
+   */
+  public static Optional<MeteredDataSource> of(SqlSessionFactory sqlSessionFactory) {
+    DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    return dataSource instanceof MeteredDataSource ? Optional.of((MeteredDataSource) dataSource) : Optional.empty();
+  }
+
+  /**
+   * 計測しているコネクションプールを返す.
+   */
+  public PooledDataSource getPool() {
+    return pool;
+  }
+
+  /**
+   * コネクションを取得した回数を返す.
+   */
+  public long checkouts() {
+    return checkouts.sum();
+  }
+
+  /**
+   * コネクションの取得にかかった時間のヒストグラムを返す.
+   */
+  public LatencyHistogram waitTime() {
+    return waitTime;
+  }
+
+  /**
+   * 使用中のコネクションの数を返す.
+   */
+  public int activeConnections() {
+    return pool.getPoolState().getActiveConnectionCount();
+  }
+
+  /**
+   * プールで待機しているコネクションの数を返す.
+   */
+  public int idleConnections() {
+    return pool.getPoolState().getIdleConnectionCount();
+  }
+
+  /**
+   * 現在の計測値を返す. 時間はマイクロ秒とする.
+   *
+   * @return 計測値の名前から値へのMap（挿入順）
+   */
+  public Map<String, Number> snapshot() {
+    PoolState state = pool.getPoolState();
+    Map<String, Number> snapshot = new LinkedHashMap<>();
+    snapshot.put("checkouts", checkouts());
+    snapshot.put("activeConnections", state.getActiveConnectionCount());
+    snapshot.put("idleConnections", state.getIdleConnectionCount());
+    snapshot.put("maxActiveConnections", pool.getPoolMaximumActiveConnections());
+    // プールが空くのを待った回数と、使用期限を過ぎて取り上げた回数
+    snapshot.put("hadToWaitCount", state.getHadToWaitCount());
+    snapshot.put("claimedOverdueConnections", state.getClaimedOverdueConnectionCount());
+    snapshot.put("badConnections", state.getBadConnectionCount());
+    snapshot.put("waitMeanMicros", micros((long) waitTime.meanNanos()));
+    snapshot.put("waitP50Micros", micros(waitTime.percentileNanos(50)));
+    snapshot.put("waitP99Micros", micros(waitTime.percentileNanos(99)));
+    snapshot.put("waitMaxMicros", micros(waitTime.maxNanos()));
+    return snapshot;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    long start = System.nanoTime();
+    Connection connection = pool.getConnection();
+    record(start);
+    return connection;
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    long start = System.nanoTime();
+    Connection connection = pool.getConnection(username, password);
+    record(start);
+    return connection;
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return pool.getLogWriter();
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) throws SQLException {
+    pool.setLogWriter(out);
+  }
+
+  @Override
+  public void setLoginTimeout(int seconds) throws SQLException {
+    pool.setLoginTimeout(seconds);
+  }
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return pool.getLoginTimeout();
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    return pool.getParentLogger();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    if (iface.isInstance(pool)) {
+      return iface.cast(pool);
+    }
+    return pool.unwrap(iface);
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return iface.isInstance(pool) || pool.isWrapperFor(iface);
+  }
+
+  private void record(long start) {
+    waitTime.record(System.nanoTime() - start);
+    checkouts.increment();
+  }
+
+  private static long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+}
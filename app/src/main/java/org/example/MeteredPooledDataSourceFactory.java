@@ -0,0 +1,24 @@
+package org.example;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
+
+/**
+ * コネクションの取得を計測する{@link MeteredDataSource}を作成するファクトリ.
+ * プロパティはPOOLEDと同じで、プールの大きさ（poolMaximumActiveConnections、poolMaximumIdleConnections）、
+ * 待ち時間の上限（poolTimeToWait）、検証の間隔（poolPingEnabled、poolPingQuery、poolPingConnectionsNotUsedFor）を指定できる.
+ *
+ * <pre>
+ * &lt;dataSource type="org.example.MeteredPooledDataSourceFactory"&gt;
+ *   &lt;property name="poolMaximumActiveConnections" value="10" /&gt;
+ * &lt;/dataSource&gt;
+ * </pre>
+ */
+public class MeteredPooledDataSourceFactory extends PooledDataSourceFactory {
+  @Override
+  public DataSource getDataSource() {
+    return new MeteredDataSource((PooledDataSource) super.getDataSource());
+  }
+}
@@ -0,0 +1,221 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * findTransactionByConditionsの検索をパーティションに分割し、別々のSqlSessionで並列に読み込むクラス.
+ * 読み込んだレコードは呼び出し元のスレッドで1件ずつ渡すため、Utilの関数や書き出し処理はスレッドセーフでなくてよい.
+ * パーティションごとにキューの大きさまでしか先読みしないので、メモリ使用量は件数に関わらず一定となる.
+ * 並列数はmybatis-config.xmlのコネクションプールの最大数を超えない.
+ *
+ * <pre>
+ * PartitionedTransactionExtractor extractor = new PartitionedTransactionExtractor(sqlSessionFactory, 4);
+ * extractor.extract(conditions, Strategy.RANGE, 8, true, record -&gt; writer.accept(pipeline.apply(record)));
+ * </pre>
+ */
+public class PartitionedTransactionExtractor {
+  // パーティションを検索する文
+  public static final String FIND_TRANSACTION_PARTITION = "org.example.Mapper.findTransactionPartition";
+
+  // パーティションの境界を検索する文
+  public static final String SELECT_TRANSACTION_PARTITION_BOUNDS =
+      "org.example.Mapper.selectTransactionPartitionBounds";
+
+  // パーティションごとに先読みする件数
+  static final int QUEUE_CAPACITY = 1024;
+
+  // パーティションの読み込みが終わったことを表す値
+  private static final Object END = new Object();
+
+  /**
+   * パーティションの分割方法.
+   */
+  public enum Strategy {
+    // IDの範囲で分割する（NTILEでほぼ同じ件数に分ける）
+    RANGE,
+    // IDのハッシュ（ORA_HASH）のバケットで分割する
+    HASH
+  }
+
+  private final SqlSessionFactory sqlSessionFactory;
+  private final int parallelism;
+
+  /**
+   * @param sqlSessionFactory SqlSessionFactory
+   * @param parallelism       並列数. コネクションプールの最大数を超える場合は最大数とする
+   */
+  public PartitionedTransactionExtractor(SqlSessionFactory sqlSessionFactory, int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("並列数は1以上を指定してください: " + parallelism);
+    }
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.parallelism = Math.min(parallelism, DataSources.maxActiveConnections(sqlSessionFactory));
+  }
+
+  /**
+   * 並列数を返す.
+   */
+  public int parallelism() {
+    return parallelism;
+  }
+
+  /**
+   * 条件に一致するトランザクションを分割して並列に読み込み、1件ずつ渡す.
+   * orderedがtrueの場合はパーティションの順に、パーティションの中はIDの順に渡す（RANGEの場合は全体がIDの順となる）.
+   * falseの場合は読み込んだ順に渡す.
+   *
+   * @param conditions 条件（findTransactionByConditionsと同じ、columnNameとvalueのMapのリスト）.
+   *                   columnNameかvalueがnullの条件は無視する
+   * @param strategy   分割方法
+   * @param partitions パーティションの数
+   * @param ordered    順序を保つ場合はtrue
+   * @param action     レコードを受け取る処理. 呼び出し元のスレッドで実行する
+   * @return 渡した件数
+   * @throws InterruptedException 待機中に割り込まれた場合
+   */
+  public long extract(List<Map<String, String>> conditions, Strategy strategy, int partitions, boolean ordered,
+      Consumer<Map<String, String>> action) throws InterruptedException {
+    List<Map<String, String>> validated = new ArrayList<>();
+    for (Map<String, String> condition : conditions) {
+      if (condition.get("columnName") != null && condition.get("value") != null) {
+        SqlIdentifiers.validate(condition.get("columnName"));
+        validated.add(condition);
+      }
+    }
+    List<Map<String, Object>> parameters = partition(validated, strategy, partitions);
+
+    // 順序を保つ場合はパーティションごとのキュー、保たない場合は共有のキューに読み込む
+    List<BlockingQueue<Object>> queues = new ArrayList<>();
+    BlockingQueue<Object> shared = ordered ? null : new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    for (int i = 0; i < parameters.size(); i++) {
+      queues.add(ordered ? new ArrayBlockingQueue<>(QUEUE_CAPACITY) : shared);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, parameters.size()));
+    try {
+      for (int i = 0; i < parameters.size(); i++) {
+        Map<String, Object> parameter = parameters.get(i);
+        BlockingQueue<Object> queue = queues.get(i);
+        executor.execute(() -> read(parameter, queue));
+      }
+
+      if (!ordered) {
+        return drain(shared, parameters.size(), action);
+      }
+      // パーティションの順にキューを読み切る
+      long count = 0;
+      for (BlockingQueue<Object> queue : queues) {
+        count += drain(queue, 1, action);
+      }
+      return count;
+    } finally {
+      // 途中で終わった場合は読み込み中のパーティションを中断する
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * キューからENDを指定した数だけ受け取るまで、レコードを渡す.
+   *
+   * @return 渡した件数
+   */
+  private static long drain(BlockingQueue<Object> queue, int ends, Consumer<Map<String, String>> action)
+      throws InterruptedException {
+    long count = 0;
+    while (ends > 0) {
+      Object item = queue.take();
+      if (item == END) {
+        ends--;
+      } else if (item instanceof RuntimeException) {
+        throw (RuntimeException) item;
+      } else {
+        @SuppressWarnings("unchecked")
+        Map<String, String> record = (Map<String, String>) item;
+        action.accept(record);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * パーティションごとの検索のパラメータを作成する.
+   */
+  private List<Map<String, Object>> partition(List<Map<String, String>> conditions, Strategy strategy,
+      int partitions) {
+    if (partitions <= 0) {
+      throw new IllegalArgumentException("パーティションの数は1以上を指定してください: " + partitions);
+    }
+    List<Map<String, Object>> parameters = new ArrayList<>();
+    if (strategy == Strategy.HASH) {
+      for (int bucket = 0; bucket < partitions; bucket++) {
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("conditions", conditions);
+        parameter.put("maxBucket", partitions - 1);
+        parameter.put("bucket", bucket);
+        parameters.add(parameter);
+      }
+      return parameters;
+    }
+
+    // 各パーティションの最大のIDを境界とする. 件数がパーティションの数より少ない場合はパーティションが減る
+    List<String> upperBounds;
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      upperBounds = session.selectList(SELECT_TRANSACTION_PARTITION_BOUNDS,
+          Map.of("conditions", conditions, "partitions", partitions));
+    }
+    String lowerBound = null;
+    for (String upperBound : upperBounds) {
+      Map<String, Object> parameter = new HashMap<>();
+      parameter.put("conditions", conditions);
+      parameter.put("lowerBound", lowerBound);
+      parameter.put("upperBound", upperBound);
+      parameters.add(parameter);
+      lowerBound = upperBound;
+    }
+    if (parameters.isEmpty()) {
+      // 件数が0の場合も1つのパーティションとして検索する
+      parameters.add(Map.of("conditions", conditions));
+    }
+    return parameters;
+  }
+
+  /**
+   * 1つのパーティションをカーソルで読み込んでキューに入れる. 最後にENDを入れ、失敗した場合は例外を入れる.
+   */
+  private void read(Map<String, Object> parameter, BlockingQueue<Object> queue) {
+    try {
+      try (SqlSession session = sqlSessionFactory.openSession();
+          Cursor<Map<String, String>> cursor = session.selectCursor(FIND_TRANSACTION_PARTITION, parameter)) {
+        for (Map<String, String> record : cursor) {
+          queue.put(record);
+        }
+      } catch (InterruptedException e) {
+        throw e;
+      } catch (RuntimeException e) {
+        queue.put(e);
+        return;
+      } catch (Exception e) {
+        queue.put(new PersistenceException("パーティションの読み込みに失敗しました: " + parameter, e));
+        return;
+      }
+      queue.put(END);
+    } catch (InterruptedException e) {
+      // 呼び出し元が中断した場合は何もせずに終わる
+      Thread.currentThread().interrupt();
+    }
+  }
+}
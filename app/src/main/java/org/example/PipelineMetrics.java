@@ -0,0 +1,341 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * {@link Util}の関数を段（ステージ）ごとに計測する.
+ * 入力と出力の行数、段ごとの件数（transformValuesで置き換えた値、clearValuesByConditionsで消した値、
+ * addGroupColumnでグループ化マスタになかったキー）をLongAdderで数え、所要時間は一部の呼び出しだけを抜き出して
+ * {@link LatencyHistogram}に記録する. ロックを取らないので、本番の処理で常に有効にしておける.
+ * 計測値は{@link Exporter}で出力する.
+ *
+ * <pre>
+ * PipelineMetrics metrics = new PipelineMetrics();
+ * transactions.map(metrics.trimSpacesFromColumns())
+ *     .map(metrics.addGroupColumn(groupMaster))
+ *     .map(metrics.convertToCommaSeparatedRecord(columnOrder))
+ *     .forEach(writer);
+ * metrics.report(PipelineMetrics.console(System.out));
+ * </pre>
+ */
+public class PipelineMetrics {
+  // 既定で所要時間を計測する割合（この回数に1回）
+  static final int DEFAULT_SAMPLE_RATE = 64;
+
+  // transformValuesで置き換えた値の数
+  public static final String REPLACED = "replaced";
+  // clearValuesByConditionsで消した値の数
+  public static final String CLEARED = "cleared";
+  // addGroupColumnでグループ化マスタになかったキーの数
+  public static final String GROUP_MISSES = "groupMisses";
+
+  /**
+   * 計測値の出力先. 段の名前から計測値の名前と値へのMapを受け取る.
+   */
+  @FunctionalInterface
+  public interface Exporter {
+    void export(Map<String, Map<String, Number>> snapshot) throws IOException;
+  }
+
+  /**
+   * 1つの段の計測値.
+   */
+  public static final class StageMetrics {
+    private final LongAdder rowsIn = new LongAdder();
+    private final LongAdder rowsOut = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * 段に入った行数を返す.
+     */
+    public long rowsIn() {
+      return rowsIn.sum();
+    }
+
+    /**
+     * 段から出た行数を返す. 例外で終わった行は含まない.
+     */
+    public long rowsOut() {
+      return rowsOut.sum();
+    }
+
+    /**
+     * 段ごとの件数を返す.
+     */
+    public long count(String counter) {
+      LongAdder adder = counters.get(counter);
+      return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * 段ごとの件数を加える.
+     */
+    public void add(String counter, long n) {
+      counters.computeIfAbsent(counter, k -> new LongAdder()).add(n);
+    }
+
+    /**
+     * 抜き出して計測した所要時間のヒストグラムを返す.
+     */
+    public LatencyHistogram latency() {
+      return latency;
+    }
+
+    /**
+     * 現在の計測値を返す. 時間はナノ秒とする.
+     */
+    public Map<String, Number> snapshot() {
+      Map<String, Number> snapshot = new LinkedHashMap<>();
+      snapshot.put("rowsIn", rowsIn());
+      snapshot.put("rowsOut", rowsOut());
+      counters.keySet().stream().sorted().forEach(counter -> snapshot.put(counter, count(counter)));
+      snapshot.put("sampledCalls", latency.count());
+      snapshot.put("latencyMeanNanos", (long) latency.meanNanos());
+      snapshot.put("latencyP50Nanos", latency.percentileNanos(50));
+      snapshot.put("latencyP99Nanos", latency.percentileNanos(99));
+      snapshot.put("latencyMaxNanos", latency.maxNanos());
+      return snapshot;
+    }
+  }
+
+  private final int sampleRate;
+  // 段の名前から計測値へのMap（登録順）
+  private final Map<String, StageMetrics> stages = new LinkedHashMap<>();
+
+  public PipelineMetrics() {
+    this(DEFAULT_SAMPLE_RATE);
+  }
+
+  /**
+   * @param sampleRate 所要時間を計測する割合（この回数に1回）. 1の場合はすべての呼び出しを計測する
+   */
+  public PipelineMetrics(int sampleRate) {
+    if (sampleRate <= 0) {
+      throw new IllegalArgumentException("計測する割合は1以上を指定してください: " + sampleRate);
+    }
+    this.sampleRate = sampleRate;
+  }
+
+  /**
+   * 段の計測値を返す. ない場合は作成する.
+   */
+  public synchronized StageMetrics stage(String name) {
+    return stages.computeIfAbsent(name, k -> new StageMetrics());
+  }
+
+  /**
+   * 関数を計測する段として包む.
+   *
+   * @param name     段の名前
+   * @param function 関数
+   */
+  public <T, R> Function<T, R> instrument(String name, Function<T, R> function) {
+    return instrument(name, function, null);
+  }
+
+  /**
+   * {@link Util#trimSpacesFromColumns}を計測する.
+   */
+  public Function<Map<String, String>, Map<String, String>> trimSpacesFromColumns() {
+    return instrument("trimSpacesFromColumns", Util.trimSpacesFromColumns);
+  }
+
+  /**
+   * {@link Util#transformValues}を計測する. 置き換えた値の数を{@link #REPLACED}で数える.
+   */
+  public Function<Map<String, String>, Map<String, String>> transformValues(Map<String, String> valuePairs,
+      String[] conditions) {
+    String[] columns = valuePairs.keySet().toArray(new String[0]);
+    return instrument("transformValues", Util.transformValues.apply(valuePairs).apply(conditions),
+        (stage, record, transformed) -> stage.add(REPLACED, countChanged(columns, record, transformed)));
+  }
+
+  /**
+   * 列の並びに結び付けた{@link CompiledTransformer.Bound}を計測する. 置き換えた値の数を{@link #REPLACED}で数える.
+   * 段の名前は{@link #transformValues(Map, String[])}と同じとする.
+   */
+  public Function<String[], String[]> transformValues(CompiledTransformer.Bound transform) {
+    return instrument("transformValues", transform, (stage, values, transformed) -> {
+      // 変換がない場合は同じ配列が返る
+      if (transformed != values) {
+        stage.add(REPLACED, countChanged(values, transformed));
+      }
+    });
+  }
+
+  /**
+   * {@link Util#clearValuesByConditions}を計測する. 消した値の数を{@link #CLEARED}で数える.
+   */
+  public Function<Map<String, String>, Map<String, String>> clearValuesByConditions(Map<String, String> conditions) {
+    String[] columns = conditions.keySet().toArray(new String[0]);
+    return instrument("clearValuesByConditions", Util.clearValuesByConditions.apply(conditions),
+        (stage, record, cleared) -> stage.add(CLEARED, countChanged(columns, record, cleared)));
+  }
+
+  /**
+   * {@link Util#addGroupColumn}を計測する. グループ化マスタになかったITEM1の数を{@link #GROUP_MISSES}で数える.
+   * 見つからなかったことはaddGroupColumnが行う参照の中で数えるので、グループ化マスタを余分に参照しない.
+   */
+  public Function<Map<String, String>, Map<String, String>> addGroupColumn(Map<String, String> groupMaster) {
+    return instrument("addGroupColumn",
+        Util.addGroupColumn.apply(new MissCountingMap(groupMaster, stage("addGroupColumn"))));
+  }
+
+  /**
+   * {@link Util#filterRecordByColumns}を計測する.
+   */
+  public Function<Map<String, String>, Map<String, String>> filterRecordByColumns(Set<String> filterSet) {
+    return instrument("filterRecordByColumns", Util.filterRecordByColumns.apply(filterSet));
+  }
+
+  /**
+   * {@link Util#convertToCommaSeparatedRecord}を計測する.
+   */
+  public Function<Map<String, String>, String> convertToCommaSeparatedRecord(List<String> columnOrder) {
+    return instrument("convertToCommaSeparatedRecord", Util.convertToCommaSeparatedRecord.apply(columnOrder));
+  }
+
+  /**
+   * すべての段の現在の計測値を返す.
+   *
+   * @return 段の名前（登録順）から計測値へのMap
+   */
+  public synchronized Map<String, Map<String, Number>> snapshot() {
+    Map<String, Map<String, Number>> snapshot = new LinkedHashMap<>();
+    stages.forEach((name, stage) -> snapshot.put(name, stage.snapshot()));
+    return snapshot;
+  }
+
+  /**
+   * 現在の計測値を出力する.
+   */
+  public void report(Exporter exporter) throws IOException {
+    exporter.export(snapshot());
+  }
+
+  /**
+   * 段ごとに1行で出力する出力先を返す.
+   */
+  public static Exporter console(PrintStream out) {
+    return snapshot -> snapshot.forEach((name, metrics) -> out.println(name + " " + metrics.entrySet().stream()
+        .map(entry -> entry.getKey() + "=" + entry.getValue())
+        .collect(Collectors.joining(" "))));
+  }
+
+  /**
+   * JSONで出力する出力先を返す. 出力後にWriterをflushする（closeはしない）.
+   */
+  public static Exporter json(Writer writer) {
+    return snapshot -> {
+      new GsonBuilder().setPrettyPrinting().create().toJson(snapshot, writer);
+      writer.flush();
+    };
+  }
+
+  /**
+   * 段の結果を数える処理.
+   */
+  @FunctionalInterface
+  private interface Observer<T, R> {
+    void observe(StageMetrics stage, T input, R output);
+  }
+
+  private <T, R> Function<T, R> instrument(String name, Function<T, R> function, Observer<T, R> observer) {
+    StageMetrics stage = stage(name);
+    int rate = sampleRate;
+    return input -> {
+      stage.rowsIn.increment();
+      R output;
+      if (rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0) {
+        long start = System.nanoTime();
+        output = function.apply(input);
+        stage.latency.record(System.nanoTime() - start);
+      } else {
+        output = function.apply(input);
+      }
+      if (observer != null) {
+        observer.observe(stage, input, output);
+      }
+      stage.rowsOut.increment();
+      return output;
+    };
+  }
+
+  private static long countChanged(String[] before, String[] after) {
+    long changed = 0;
+    for (int i = 0; i < before.length; i++) {
+      if (!Objects.equals(before[i], after[i])) {
+        changed++;
+      }
+    }
+    return changed;
+  }
+
+  private static long countChanged(String[] columns, Map<String, String> before, Map<String, String> after) {
+    long changed = 0;
+    for (String column : columns) {
+      if (before.containsKey(column) && !Objects.equals(before.get(column), after.get(column))) {
+        changed++;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * グループ化マスタの参照で見つからなかったキーを数えるビュー. addGroupColumnが使うgetOrDefaultだけを数える.
+   */
+  private static final class MissCountingMap extends AbstractMap<String, String> {
+    // 見つからなかったことを表す値. 参照の同一性で比較する
+    private static final String MISSING = new String();
+
+    private final Map<String, String> groupMaster;
+    private final StageMetrics stage;
+
+    MissCountingMap(Map<String, String> groupMaster, StageMetrics stage) {
+      this.groupMaster = groupMaster;
+      this.stage = stage;
+    }
+
+    @Override
+    public String getOrDefault(Object key, String defaultValue) {
+      String value = groupMaster.getOrDefault(key, MISSING);
+      if (value == MISSING) {
+        stage.add(GROUP_MISSES, 1);
+        return defaultValue;
+      }
+      return value;
+    }
+
+    @Override
+    public String get(Object key) {
+      return groupMaster.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return groupMaster.containsKey(key);
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+      return groupMaster.entrySet();
+    }
+  }
+}
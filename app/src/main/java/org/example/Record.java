@@ -0,0 +1,126 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 共有のスキーマ（ヘッダー）と値の配列からなるコンパクトなレコード.
+ * レコードごとにMapやエントリを作らないため、{@code Map<String, String>}よりも1行あたりの割り当てが少ない.
+ * カラムの値は{@link RecordSchema#indexOf}で求めた列番号で取得する.
+ */
+public final class Record {
+  private final RecordSchema schema;
+  private final String[] values;
+
+  /**
+   * レコードを作成する. 値の配列はコピーせずにそのまま保持する.
+   *
+   * @param schema スキーマ
+   * @param values スキーマの列順の値
+   */
+  public Record(RecordSchema schema, String[] values) {
+    if (schema.size() != values.length) {
+      throw new IllegalArgumentException("カラム数と値の数が一致しません: " + schema + ", " + Arrays.toString(values));
+    }
+    this.schema = schema;
+    this.values = values;
+  }
+
+  /**
+   * Mapからレコードを作成する. スキーマはMapのキーの並びとなる.
+   *
+   * @param map トランザクションレコード
+   * @return レコード
+   */
+  public static Record fromMap(Map<String, String> map) {
+    return fromMap(RecordSchema.of(map.keySet()), map);
+  }
+
+  /**
+   * Mapから指定したスキーマのレコードを作成する. Mapにないカラムの値はnullとなる.
+   * 同じスキーマのMapを大量に変換する場合は、スキーマを一度だけ作ってこちらを使う.
+   *
+   * @param schema スキーマ
+   * @param map    トランザクションレコード
+   * @return レコード
+   */
+  public static Record fromMap(RecordSchema schema, Map<String, String> map) {
+    String[] values = new String[schema.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = map.get(schema.column(i));
+    }
+    return new Record(schema, values);
+  }
+
+  /**
+   * Mapに変換する.
+   *
+   * @return トランザクションレコード
+   */
+  public Map<String, String> toMap() {
+    Map<String, String> map = new HashMap<>();
+    for (int i = 0; i < values.length; i++) {
+      map.put(schema.column(i), values[i]);
+    }
+    return map;
+  }
+
+  public RecordSchema getSchema() {
+    return schema;
+  }
+
+  /**
+   * 列番号の値を返す.
+   */
+  public String get(int index) {
+    return values[index];
+  }
+
+  /**
+   * カラムの値を返す.
+   *
+   * @param column カラム名
+   * @return 値. カラムがない場合はnull
+   */
+  public String get(String column) {
+    int index = schema.indexOf(column);
+    return index >= 0 ? values[index] : null;
+  }
+
+  /**
+   * カラム数を返す.
+   */
+  public int size() {
+    return values.length;
+  }
+
+  /**
+   * 値の配列をコピーせずに返す. 呼び出し側で変更しないこと.
+   */
+  String[] values() {
+    return values;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Record)) {
+      return false;
+    }
+    Record other = (Record) obj;
+    return schema == other.schema && Arrays.equals(values, other.values);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * schema.hashCode() + Arrays.hashCode(values);
+  }
+
+  @Override
+  public String toString() {
+    return toMap().toString();
+  }
+}
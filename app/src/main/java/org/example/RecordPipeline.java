@@ -0,0 +1,143 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * {@link Util}の関数の連結を宣言的に組み立て、1レコード1パスの処理に融合するビルダー.
+ *
+ * <pre>
+ * Function&lt;Map&lt;String, String&gt;, String&gt; pipeline = RecordPipeline.builder()
+ *     .trimSpacesFromColumns()
+ *     .addGroupColumn(groupMaster)
+ *     .filterRecordByColumns(filterSet)
+ *     .toCommaSeparatedRecord(columnOrder);
+ * </pre>
+ *
+ * 組み立て時に出力するカラムごとに値の求め方を解決しておくため、レコードごとに中間のMapは作らない.
+ * フィルタで落ちるカラムはトリムせず、GROUP列のグループ化マスタの参照は行を書き出すときに行う.
+ * 結果はUtilの関数を同じ順に連結した場合と同じになる.
+ */
+public class RecordPipeline {
+  // 中間のレコードにカラムがないことを表す値. 参照の同一性で比較する.
+  // Util.convertToCommaSeparatedRecordはカラムがない場合に"null"と出力するので、その文字列を持たせておく
+  private static final String MISSING = new String("null");
+
+  private final List<Stage> stages = new ArrayList<>();
+
+  private RecordPipeline() {
+  }
+
+  /**
+   * ビルダーを作成する.
+   */
+  public static RecordPipeline builder() {
+    return new RecordPipeline();
+  }
+
+  /**
+   * 各カラムのスペースをトリムする. {@link Util#trimSpacesFromColumns}に対応する.
+   */
+  public RecordPipeline trimSpacesFromColumns() {
+    stages.add((column, upstream) -> {
+      ColumnReader reader = upstream.apply(column);
+      return record -> {
+        String value = reader.read(record);
+        // null値を空文字列に置き換え、スペースをトリム
+        return value == MISSING ? MISSING : BatchTrimmer.stripTrailing(value);
+      };
+    });
+    return this;
+  }
+
+  /**
+   * GROUP列を追加する. {@link Util#addGroupColumn}に対応する.
+   *
+   * @param groupMaster グループ化マスタ
+   */
+  public RecordPipeline addGroupColumn(Map<String, String> groupMaster) {
+    stages.add((column, upstream) -> {
+      // TODO:本当の名前に変更すること
+      if (!column.equals("GROUP")) {
+        return upstream.apply(column);
+      }
+      ColumnReader item1Reader = upstream.apply("ITEM1");
+      return record -> {
+        String item1 = item1Reader.read(record);
+        if (item1 == MISSING) {
+          item1 = null;
+        }
+        // グループ化マスタからグループを取得（ヒットしない場合はITEM1の値を使用）
+        return groupMaster.getOrDefault(item1, item1);
+      };
+    });
+    return this;
+  }
+
+  /**
+   * 必要な列だけを残す. {@link Util#filterRecordByColumns}に対応する.
+   *
+   * @param filterSet 必要な列を定義したフィルタセット
+   */
+  public RecordPipeline filterRecordByColumns(Set<String> filterSet) {
+    stages.add((column, upstream) -> filterSet.contains(column) ? upstream.apply(column) : record -> MISSING);
+    return this;
+  }
+
+  /**
+   * カンマ区切りの文字列に変換する関数を作成する. {@link Util#convertToCommaSeparatedRecord}に対応する.
+   *
+   * @param columnOrder カラム順序
+   * @return レコードをカンマ区切りの文字列に変換する関数
+   */
+  public Function<Map<String, String>, String> toCommaSeparatedRecord(List<String> columnOrder) {
+    ColumnReader[] readers = columnOrder.stream()
+        .map(column -> resolve(column, stages.size()))
+        .toArray(ColumnReader[]::new);
+
+    return record -> {
+      StringBuilder line = new StringBuilder();
+      for (int i = 0; i < readers.length; i++) {
+        if (i > 0) {
+          line.append(',');
+        }
+        // Util.convertToCommaSeparatedRecordと同じく、カラムがない場合は"null"、値がnullの場合は空文字列とする
+        String value = readers[i].read(record);
+        CsvLineEncoder.appendField(value, line);
+      }
+      return line.toString();
+    };
+  }
+
+  /**
+   * 指定した段数の処理を終えた時点でのカラムの値の求め方を解決する.
+   */
+  private ColumnReader resolve(String column, int stageCount) {
+    if (stageCount == 0) {
+      return record -> {
+        String value = record.get(column);
+        return value != null || record.containsKey(column) ? value : MISSING;
+      };
+    }
+    return stages.get(stageCount - 1).resolve(column, upstreamColumn -> resolve(upstreamColumn, stageCount - 1));
+  }
+
+  /**
+   * 元のレコードからカラムの値を求める.
+   */
+  @FunctionalInterface
+  private interface ColumnReader {
+    String read(Map<String, String> record);
+  }
+
+  /**
+   * 前段の値の求め方から、この段を通した後のカラムの値の求め方を作る.
+   */
+  @FunctionalInterface
+  private interface Stage {
+    ColumnReader resolve(String column, Function<String, ColumnReader> upstream);
+  }
+}
@@ -0,0 +1,166 @@
+package org.example;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link Record}のカラム名の並び（ヘッダー）.
+ * 同じカラム名の並びに対しては同じインスタンスを返す（インターンする）ため、すべてのレコードで共有され、
+ * インスタンスの同一性でスキーマを比較できる. 使われなくなったスキーマはGCで回収されるので、
+ * 多くの種類のヘッダーを扱う長時間動くJVMでもインターンしたスキーマが増え続けない.
+ */
+public final class RecordSchema {
+  // カラム名の並びごとのスキーマ. 値は弱参照で持ち、どこからも参照されなくなったスキーマはGCで回収させる
+  private static final ConcurrentMap<List<String>, SchemaReference> INTERNED = new ConcurrentHashMap<>();
+  // 回収されたスキーマの参照. INTERNEDから削除するために使う
+  private static final ReferenceQueue<RecordSchema> COLLECTED = new ReferenceQueue<>();
+
+  /**
+   * INTERNEDの値. 回収された後にキーを削除できるようカラム名の並びを持つ.
+   */
+  private static final class SchemaReference extends WeakReference<RecordSchema> {
+    private final List<String> columns;
+
+    SchemaReference(RecordSchema schema) {
+      super(schema, COLLECTED);
+      this.columns = schema.columns;
+    }
+  }
+
+  private final List<String> columns;
+  private final Map<String, Integer> indexes;
+
+  private RecordSchema(List<String> columns) {
+    this.columns = columns;
+    this.indexes = new HashMap<>();
+    for (int i = 0; i < columns.size(); i++) {
+      indexes.putIfAbsent(columns.get(i), i);
+    }
+  }
+
+  /**
+   * カラム名の並びからスキーマを取得する.
+   *
+   * @param columns カラム名の並び
+   * @return インターンされたスキーマ
+   */
+  public static RecordSchema of(List<String> columns) {
+    SchemaReference reference = INTERNED.get(columns);
+    RecordSchema schema = reference != null ? reference.get() : null;
+    if (schema != null) {
+      return schema;
+    }
+    expungeCollected();
+    RecordSchema[] interned = new RecordSchema[1];
+    INTERNED.compute(List.copyOf(columns), (key, current) -> {
+      interned[0] = current != null ? current.get() : null;
+      if (interned[0] != null) {
+        return current;
+      }
+      interned[0] = new RecordSchema(key);
+      return new SchemaReference(interned[0]);
+    });
+    return interned[0];
+  }
+
+  /**
+   * インターンしているスキーマの数を返す. 回収済みのスキーマは含まない.
+   */
+  static int internedCount() {
+    expungeCollected();
+    return INTERNED.size();
+  }
+
+  /**
+   * 回収されたスキーマをINTERNEDから削除する.
+   */
+  private static void expungeCollected() {
+    Reference<? extends RecordSchema> reference;
+    while ((reference = COLLECTED.poll()) != null) {
+      SchemaReference collected = (SchemaReference) reference;
+      // 同じカラム名の並びで作り直したスキーマは削除しない
+      INTERNED.remove(collected.columns, collected);
+    }
+  }
+
+  /**
+   * カラム名からスキーマを取得する.
+   *
+   * @param columns カラム名
+   * @return インターンされたスキーマ
+   */
+  public static RecordSchema of(String... columns) {
+    return of(Arrays.asList(columns));
+  }
+
+  /**
+   * Mapのキーの並びからスキーマを取得する.
+   *
+   * @param columns Mapのキー
+   * @return インターンされたスキーマ
+   */
+  static RecordSchema of(Collection<String> columns) {
+    return of(new ArrayList<>(columns));
+  }
+
+  /**
+   * カラム名の列番号を返す.
+   *
+   * @param column カラム名
+   * @return 列番号. カラムがない場合は-1
+   */
+  public int indexOf(String column) {
+    return indexes.getOrDefault(column, -1);
+  }
+
+  /**
+   * 列番号のカラム名を返す.
+   */
+  public String column(int index) {
+    return columns.get(index);
+  }
+
+  /**
+   * カラム数を返す.
+   */
+  public int size() {
+    return columns.size();
+  }
+
+  /**
+   * カラム名の並びを返す.
+   */
+  public List<String> columns() {
+    return Collections.unmodifiableList(columns);
+  }
+
+  /**
+   * 末尾にカラムを追加したスキーマを返す. すでにカラムがある場合はこのスキーマを返す.
+   *
+   * @param column 追加するカラム名
+   * @return カラムを追加したスキーマ
+   */
+  public RecordSchema append(String column) {
+    if (indexOf(column) >= 0) {
+      return this;
+    }
+    List<String> appended = new ArrayList<>(columns);
+    appended.add(column);
+    return of(appended);
+  }
+
+  @Override
+  public String toString() {
+    return columns.toString();
+  }
+}
@@ -0,0 +1,148 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * {@link Util}の関数の{@link Record}版.
+ * カラムは列番号で参照し、スキーマごとの列番号の解決結果はキャッシュする.
+ * 値が変わらない場合は同じレコードを返し、変わる場合も値の配列を1つ作るだけなので、
+ * Mapを作り直すUtilの関数よりも1行あたりの割り当てが大幅に少ない.
+ * Mapとの相互変換は{@link Record#fromMap}と{@link Record#toMap}で行う.
+ */
+public class RecordUtil {
+  /**
+   * レコードの各カラムのスペースをトリムする関数. null値は空文字列に置き換え、トリム不要のレコードはそのまま返す.
+   *
+   * @return スペースをトリムしたレコード
+   */
+  public static final Function<Record, Record> trimSpacesFromColumns = BatchTrimmer::trim;
+
+  /**
+   * 項目名と状態項目名のペアに基づいて値を変換する関数.
+   *
+   * @param valuePairs 項目名と状態項目名のペア (例: {"項目A": "状態-項目A", ...})
+   * @param conditions 条件 (例: {"1|3": "@"})
+   * @return 変換後のレコード
+   */
+  public static final Function<Map<String, String>, Function<String[], Function<Record, Record>>> transformValues = valuePairs -> conditions -> {
+    CompiledTransformer transformer = CompiledTransformer.compile(valuePairs, conditions);
+    SchemaCache<CompiledTransformer.Bound> bounds = new SchemaCache<>(schema -> transformer.bind(schema.columns()));
+
+    return record -> {
+      String[] values = record.values();
+      String[] transformedValues = bounds.get(record.getSchema()).apply(values);
+      return transformedValues != values ? new Record(record.getSchema(), transformedValues) : record;
+    };
+  };
+
+  /**
+   * 条件に基づいて値を空文字列に置き換える関数.
+   *
+   * @param conditions 条件 (例: {"ITEM1": "^[0-9]+$","ITEM2":"^a$"...})
+   * @return 条件に基づいて値を空文字列に置き換えたレコード
+   */
+  public static final Function<Map<String, String>, Function<Record, Record>> clearValuesByConditions = conditions -> {
+    // 正規表現は関数の生成時に一度だけコンパイルする
+    ClearRuleSet rules = ClearRuleSet.compile(conditions);
+    return rules::apply;
+  };
+
+  /**
+   * グループ化マスタを追加する関数.
+   *
+   * @param groupMaster グループ化マスタ
+   * @return グループ列を追加したトランザクションレコード
+   */
+  public static final Function<Map<String, String>, Function<Record, Record>> addGroupColumn = groupMaster -> record -> {
+    RecordSchema schema = record.getSchema();
+
+    // ITEM1の値を取得
+    // TODO:本当の名前に変更すること
+    String item1 = record.get("ITEM1");
+
+    // グループ化マスタからグループを取得（ヒットしない場合はITEM1の値を使用）
+    String group = groupMaster.getOrDefault(item1, item1);
+
+    // トランザクションデータにGROUP列を追加
+    // TODO:本当の名前に変更すること
+    RecordSchema groupSchema = schema.append("GROUP");
+    String[] values = Arrays.copyOf(record.values(), groupSchema.size());
+    values[groupSchema.indexOf("GROUP")] = group;
+    return new Record(groupSchema, values);
+  };
+
+  /**
+   * レコードから必要な列だけを残す関数.
+   *
+   * @param filterSet 必要な列を定義したフィルタセット
+   * @return 必要な列だけを残したトランザクションレコード
+   */
+  public static final Function<Set<String>, Function<Record, Record>> filterRecordByColumns = filterSet -> {
+    SchemaCache<Projection> projections = new SchemaCache<>(schema -> new Projection(schema, filterSet));
+
+    return record -> {
+      Projection projection = projections.get(record.getSchema());
+      if (projection.schema == null) {
+        return record;
+      }
+      String[] values = record.values();
+      String[] projectedValues = new String[projection.indexes.length];
+      for (int i = 0; i < projectedValues.length; i++) {
+        projectedValues[i] = values[projection.indexes[i]];
+      }
+      return new Record(projection.schema, projectedValues);
+    };
+  };
+
+  /**
+   * レコードをカンマ区切りの文字列に変換する関数.
+   *
+   * @param columnOrder カラム順序
+   * @return カンマ区切りの文字列
+   */
+  public static final Function<List<String>, Function<Record, String>> convertToCommaSeparatedRecord = columnOrder -> {
+    SchemaCache<int[]> indexes = new SchemaCache<>(schema -> columnOrder.stream().mapToInt(schema::indexOf).toArray());
+
+    return record -> {
+      int[] columnIndexes = indexes.get(record.getSchema());
+      StringBuilder line = new StringBuilder();
+      for (int i = 0; i < columnIndexes.length; i++) {
+        if (i > 0) {
+          line.append(',');
+        }
+        // Util.convertToCommaSeparatedRecordと同じく、カラムがない場合は"null"、値がnullの場合は空文字列とする
+        int index = columnIndexes[i];
+        String value = index >= 0 ? record.get(index) : "null";
+        CsvLineEncoder.appendField(value, line);
+      }
+      return line.toString();
+    };
+  };
+
+  /**
+   * スキーマからフィルタセットに含まれる列だけを残した射影.
+   */
+  private static class Projection {
+    // 射影後のスキーマ. すべての列が残る場合はnull（キャッシュのキーの元のスキーマを参照しないため）
+    private final RecordSchema schema;
+    private final int[] indexes;
+
+    Projection(RecordSchema source, Set<String> filterSet) {
+      List<String> columns = new ArrayList<>();
+      List<Integer> columnIndexes = new ArrayList<>();
+      for (int i = 0; i < source.size(); i++) {
+        if (filterSet.contains(source.column(i))) {
+          columns.add(source.column(i));
+          columnIndexes.add(i);
+        }
+      }
+      this.schema = columns.size() == source.size() ? null : RecordSchema.of(columns);
+      this.indexes = columnIndexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+}
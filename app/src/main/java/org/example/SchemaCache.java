@@ -0,0 +1,63 @@
+package org.example;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * {@link RecordSchema}ごとに計算した値（列番号の解決結果など）のキャッシュ.
+ * スキーマは弱参照で持ち、どのレコードからも参照されなくなったスキーマの値はGCで回収される.
+ * RecordSchemaはインターンされequalsを定義しないので、キーはインスタンスの同一性で比較される.
+ * 値からキーのスキーマを参照すると回収されなくなるので、値にはキーのスキーマを持たせないこと.
+ * 直前に使ったスキーマ1つだけは強参照で持ち、その値はロックを取らずに返す. このクラスはスレッドセーフである.
+ *
+ * @param <V> 値の型
+ */
+final class SchemaCache<V> {
+  private final Function<RecordSchema, V> mappingFunction;
+  private final Map<RecordSchema, V> values = new WeakHashMap<>();
+  // 直前に使ったスキーマと値. 同じスキーマのレコードが続く場合はロックを取らない
+  private volatile Entry<V> last;
+
+  private static final class Entry<V> {
+    private final RecordSchema schema;
+    private final V value;
+
+    Entry(RecordSchema schema, V value) {
+      this.schema = schema;
+      this.value = value;
+    }
+  }
+
+  /**
+   * @param mappingFunction スキーマから値を計算する関数
+   */
+  SchemaCache(Function<RecordSchema, V> mappingFunction) {
+    this.mappingFunction = mappingFunction;
+  }
+
+  /**
+   * スキーマの値を返す. キャッシュにない場合は計算して登録する.
+   */
+  V get(RecordSchema schema) {
+    Entry<V> entry = last;
+    if (entry != null && entry.schema == schema) {
+      return entry.value;
+    }
+    V value;
+    synchronized (values) {
+      value = values.computeIfAbsent(schema, mappingFunction);
+    }
+    last = new Entry<>(schema, value);
+    return value;
+  }
+
+  /**
+   * キャッシュしているスキーマの数を返す. 回収されたスキーマは含まない.
+   */
+  int size() {
+    synchronized (values) {
+      return values.size();
+    }
+  }
+}
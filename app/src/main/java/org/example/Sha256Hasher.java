@@ -0,0 +1,121 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Function;
+
+/**
+ * SHA-256ハッシュを計算するクラス.
+ * MessageDigestはスレッドごとに1つを使い回し、文字列はUTF-8でバイト列に変換する.
+ * 16進数文字列への変換は変換表を使い、1バイトごとに文字列を作らない.
+ * ハッシュ値と16進数のバッファもスレッドごとに使い回し、16進数はISO-8859-1のバイト列から文字列にするため、
+ * {@link #hash(String)}の呼び出しごとの割り当ては入力のバイト列と結果の文字列だけとなる.
+ */
+public final class Sha256Hasher {
+  // ハッシュ値のバイト数
+  public static final int HASH_LENGTH = 32;
+
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+
+  private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+  /**
+   * スレッドごとに使い回すMessageDigestとバッファ.
+   */
+  private static final class Buffers {
+    private final MessageDigest digest = newDigest();
+    private final byte[] hash = new byte[HASH_LENGTH];
+    private final byte[] hex = new byte[HASH_LENGTH * 2];
+
+    /**
+     * 入力のハッシュ値を16進数文字列にする.
+     */
+    String hash(String input) {
+      try {
+        digest.update(input.getBytes(StandardCharsets.UTF_8));
+        digest.digest(hash, 0, HASH_LENGTH);
+      } catch (DigestException e) {
+        throw new IllegalStateException(e);
+      }
+      // 16進数の文字はすべてASCIIなので、ISO-8859-1のバイト列からそのまま文字列にできる
+      return new String(toHex(hash, hex), StandardCharsets.ISO_8859_1);
+    }
+  }
+
+  private Sha256Hasher() {
+  }
+
+  /**
+   * SHA-256ハッシュを64文字の16進数文字列（小文字）で返す.
+   *
+   * @param input 入力文字列
+   * @return SHA256ハッシュ値
+   */
+  public static String hash(String input) {
+    return BUFFERS.get().hash(input);
+  }
+
+  /**
+   * SHA-256ハッシュを32バイトのバイト列で返す.
+   *
+   * @param input 入力文字列
+   * @return SHA256ハッシュ値
+   */
+  public static byte[] hashBytes(String input) {
+    return BUFFERS.get().digest.digest(input.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * 列の値をまとめてハッシュする. MessageDigestとバッファを列全体で使い回す.
+   *
+   * @param inputs 入力文字列の配列. nullの要素はnullのまま返す
+   * @return 入力と同じ順序のSHA256ハッシュ値の配列
+   */
+  public static String[] hashAll(String[] inputs) {
+    Buffers buffers = BUFFERS.get();
+    String[] hashes = new String[inputs.length];
+    for (int i = 0; i < inputs.length; i++) {
+      if (inputs[i] != null) {
+        hashes[i] = buffers.hash(inputs[i]);
+      }
+    }
+    return hashes;
+  }
+
+  /**
+   * 最近の入力のハッシュ値を覚えておく関数を作成する. 同じ入力が繰り返し現れる場合に使う.
+   *
+   * @param maxEntries 覚えておく最大件数
+   * @return 入力文字列のSHA256ハッシュ値を返す関数
+   */
+  public static Function<String, String> memoized(int maxEntries) {
+    LruCache<String, String> cache = new LruCache<>(maxEntries);
+    return input -> cache.computeIfAbsent(input, Sha256Hasher::hash);
+  }
+
+  /**
+   * バイト列を16進数文字列（小文字）に変換する.
+   */
+  public static String toHex(byte[] bytes) {
+    return new String(toHex(bytes, new byte[bytes.length * 2]), StandardCharsets.ISO_8859_1);
+  }
+
+  private static byte[] toHex(byte[] bytes, byte[] hex) {
+    for (int i = 0; i < bytes.length; i++) {
+      int b = bytes[i] & 0xff;
+      hex[i * 2] = HEX_DIGITS[b >>> 4];
+      hex[i * 2 + 1] = HEX_DIGITS[b & 0x0f];
+    }
+    return hex;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException("SHA-256アルゴリズムが見つかりません", e);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package org.example;
+
+import java.util.regex.Pattern;
+
+/**
+ * SQLに埋め込む識別子（テーブル名、列名）を検証するユーティリティ.
+ * Mapper.xmlの${...}はバインド変数にならないため、埋め込む前に必ず検証する.
+ */
+final class SqlIdentifiers {
+  // SQLに埋め込める識別子（文字、数字、アンダースコア. 先頭は数字以外）
+  private static final Pattern IDENTIFIER = Pattern.compile("[\\p{L}_][\\p{L}\\p{N}_]*");
+
+  private SqlIdentifiers() {
+  }
+
+  /**
+   * 識別子として正しいことを検証する.
+   *
+   * @return 検証した識別子
+   * @throws IllegalArgumentException 識別子として正しくない場合
+   */
+  static String validate(String identifier) {
+    if (identifier == null || !IDENTIFIER.matcher(identifier).matches()) {
+      throw new IllegalArgumentException("識別子が不正です: " + identifier);
+    }
+    return identifier;
+  }
+}
@@ -0,0 +1,152 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * MyBatisの{@link Cursor}でトランザクションを1件ずつ読み込むデータソース.
+ * {@code session.selectList}のように全件をListに読み込まないため、テーブルの大きさに関わらずメモリ使用量は一定となる.
+ * JDBCのfetchSizeは文ごとに指定でき、Mapper.xmlの文をfetchSizeだけ変えた文を作成して使う.
+ * カーソルは読み込みが終わるまでSqlSessionを開いておく必要がある.
+ *
+ * <pre>
+ * try (SqlSession session = sqlSessionFactory.openSession()) {
+ *   new TransactionCursorSource(session).export(pipeline, writer);
+ * }
+ * </pre>
+ */
+public class TransactionCursorSource {
+  // トランザクションテーブルからすべてのデータを取得する文
+  public static final String SELECT_ALL_TRANSACTIONS = "org.example.Mapper.selectAllTransactions";
+
+  // 既定のfetchSize
+  public static final int DEFAULT_FETCH_SIZE = 1000;
+
+  // エクスポートする行の改行コード（CSVFormat.DEFAULTと同じ）
+  private static final String LINE_SEPARATOR = "\r\n";
+
+  private final SqlSession session;
+  private final String statement;
+  private final Object parameter;
+
+  /**
+   * {@link #SELECT_ALL_TRANSACTIONS}を既定のfetchSizeで読み込む.
+   */
+  public TransactionCursorSource(SqlSession session) {
+    this(session, SELECT_ALL_TRANSACTIONS, null, DEFAULT_FETCH_SIZE);
+  }
+
+  /**
+   * @param session   SqlSession
+   * @param statement Mapper.xmlの文のID
+   * @param parameter 文のパラメータ
+   * @param fetchSize JDBCのfetchSize. 0以下の場合はMapper.xmlの指定に従う
+   */
+  public TransactionCursorSource(SqlSession session, String statement, Object parameter, int fetchSize) {
+    this.session = session;
+    this.statement = fetchSize > 0 ? withFetchSize(session.getConfiguration(), statement, fetchSize) : statement;
+    this.parameter = parameter;
+  }
+
+  /**
+   * トランザクションを1件ずつ読み込むStreamを返す. Streamを閉じるとカーソルも閉じる.
+   */
+  public Stream<Map<String, String>> stream() {
+    Cursor<Map<String, String>> cursor = session.selectCursor(statement, parameter);
+    Iterator<Map<String, String>> iterator = cursor.iterator();
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .onClose(() -> {
+          try {
+            cursor.close();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
+
+  /**
+   * トランザクションを1件ずつ処理する.
+   */
+  public void forEach(Consumer<Map<String, String>> action) {
+    try (Stream<Map<String, String>> transactions = stream()) {
+      transactions.forEach(action);
+    }
+  }
+
+  /**
+   * トランザクションを1件ずつ変換して書き出す.
+   *
+   * @param pipeline レコードを1行の文字列に変換する関数（{@link Util#convertToCommaSeparatedRecord}や{@link RecordPipeline}）
+   * @param writer   書き出し先
+   * @return 書き出した行数
+   * @throws IOException 書き出しに失敗した場合
+   */
+  public long export(Function<Map<String, String>, String> pipeline, Writer writer) throws IOException {
+    long count = 0;
+    try (Stream<Map<String, String>> transactions = stream()) {
+      Iterator<Map<String, String>> iterator = transactions.iterator();
+      while (iterator.hasNext()) {
+        writer.write(pipeline.apply(iterator.next()));
+        writer.write(LINE_SEPARATOR);
+        count++;
+      }
+    }
+    writer.flush();
+    return count;
+  }
+
+  /**
+   * 文のfetchSizeだけを変えた文を作成して登録し、そのIDを返す. 登録済みの場合はそれを使う.
+   */
+  static String withFetchSize(Configuration configuration, String statement, int fetchSize) {
+    String id = statement + "#fetchSize=" + fetchSize;
+    synchronized (configuration) {
+      if (configuration.hasStatement(id, false)) {
+        return id;
+      }
+      MappedStatement original = configuration.getMappedStatement(statement);
+      MappedStatement.Builder builder = new MappedStatement.Builder(configuration, id, original.getSqlSource(),
+          original.getSqlCommandType())
+          .resource(original.getResource())
+          .fetchSize(fetchSize)
+          .timeout(original.getTimeout())
+          .statementType(original.getStatementType())
+          .resultSetType(original.getResultSetType())
+          .parameterMap(original.getParameterMap())
+          .resultMaps(original.getResultMaps())
+          .cache(original.getCache())
+          .flushCacheRequired(original.isFlushCacheRequired())
+          .useCache(original.isUseCache())
+          .resultOrdered(original.isResultOrdered())
+          .keyGenerator(original.getKeyGenerator())
+          .databaseId(original.getDatabaseId())
+          .lang(original.getLang());
+      if (original.getKeyProperties() != null) {
+        builder.keyProperty(String.join(",", original.getKeyProperties()));
+      }
+      if (original.getKeyColumns() != null) {
+        builder.keyColumn(String.join(",", original.getKeyColumns()));
+      }
+      if (original.getResultSets() != null) {
+        builder.resultSets(String.join(",", original.getResultSets()));
+      }
+      configuration.addMappedStatement(builder.build());
+      return id;
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * findTransactionByConditionsを同じ条件の形で何度も呼び出すためのクラス.
+ * 条件は列名の順に並べ替え（ANDなので結果は変わらない）、列名の並び（形）ごとにMapper.xmlの動的SQLを1回だけ評価して
+ * SQLとパラメータの対応をキャッシュする. SQLはMapper.xmlの文から作るので、Mapper.xmlと食い違うことはない.
+ * REUSEのSqlSessionで実行するため、同じ形の2回目以降の呼び出しは動的SQLの評価もPreparedStatementの作成も行わない.
+ * SqlSessionと同じく、このクラスはスレッドセーフではない.
+ *
+ * <pre>
+ * try (TransactionFinder finder = new TransactionFinder(sqlSessionFactory)) {
+ *   List&lt;Map&lt;String, String&gt;&gt; records = finder.find(conditions);
+ * }
+ * </pre>
+ */
+public class TransactionFinder implements AutoCloseable {
+  // 条件の形ごとの文の元となる文
+  public static final String FIND_TRANSACTION_BY_CONDITIONS = "org.example.Mapper.findTransactionByConditions";
+
+  // 条件の形ごとにSQLをキャッシュする文. Configurationに1つだけ登録する
+  static final String FIND_TRANSACTION_BY_SHAPE = FIND_TRANSACTION_BY_CONDITIONS + "#shape";
+
+  // SQLをキャッシュする条件の形の最大数. 超えると最も長く使われていない形から削除する
+  static final int MAX_SHAPES = 256;
+
+  // 1つのSqlSessionで開いたままにするPreparedStatementの最大数. 超えるとすべて閉じてから作り直す
+  static final int MAX_OPEN_STATEMENTS = 64;
+
+  private static final Comparator<Map<String, String>> BY_COLUMN_NAME = Comparator
+      .comparing(condition -> condition.get("columnName"));
+
+  private final SqlSession session;
+  private final boolean ownsSession;
+  private final String statement;
+  // このSqlSessionで使った列名の並び（PreparedStatementを開いている形）
+  private final Set<List<String>> shapes = new HashSet<>();
+
+  /**
+   * REUSEのSqlSessionを開いて作成する. {@link #close()}でSqlSessionも閉じる.
+   */
+  public TransactionFinder(SqlSessionFactory sqlSessionFactory) {
+    this(sqlSessionFactory.openSession(ExecutorType.REUSE), true);
+  }
+
+  /**
+   * 開いているSqlSessionで作成する. PreparedStatementを再利用するにはREUSEのSqlSessionを渡すこと.
+   * {@link #close()}ではSqlSessionを閉じない.
+   */
+  public TransactionFinder(SqlSession session) {
+    this(session, false);
+  }
+
+  private TransactionFinder(SqlSession session, boolean ownsSession) {
+    this.session = session;
+    this.ownsSession = ownsSession;
+    this.statement = register(session.getConfiguration());
+  }
+
+  /**
+   * 条件に一致するトランザクションを取得する.
+   *
+   * @param conditions 条件（findTransactionByConditionsと同じ、columnNameとvalueのMapのリスト）.
+   *                   columnNameかvalueがnullの条件は無視する
+   */
+  public List<Map<String, String>> find(List<Map<String, String>> conditions) {
+    List<Map<String, String>> sorted = new ArrayList<>();
+    for (Map<String, String> condition : conditions) {
+      if (condition.get("columnName") != null && condition.get("value") != null) {
+        sorted.add(condition);
+      }
+    }
+    sorted.sort(BY_COLUMN_NAME);
+
+    List<String> columns = new ArrayList<>(sorted.size());
+    List<String> values = new ArrayList<>(sorted.size());
+    for (Map<String, String> condition : sorted) {
+      columns.add(condition.get("columnName"));
+      values.add(condition.get("value"));
+    }
+    if (!shapes.contains(columns)) {
+      columns.forEach(SqlIdentifiers::validate);
+      if (shapes.size() >= MAX_OPEN_STATEMENTS) {
+        // REUSEのSqlSessionはSQLごとにPreparedStatementを開いたままにするので、形が多すぎる場合は閉じる
+        session.flushStatements();
+        shapes.clear();
+      }
+      shapes.add(List.copyOf(columns));
+    }
+    return session.selectList(statement, Map.of("columns", columns, "values", values));
+  }
+
+  /**
+   * このSqlSessionで使っている条件の形の数を返す.
+   */
+  public int shapeCount() {
+    return shapes.size();
+  }
+
+  @Override
+  public void close() {
+    if (ownsSession) {
+      session.close();
+    }
+  }
+
+  /**
+   * 条件の形ごとにSQLをキャッシュする文を登録し、そのIDを返す. 登録済みの場合はそれを使う.
+   * 文のパラメータは、列名の並び（columns）と同じ順の値（values）のMapとする.
+   */
+  static String register(Configuration configuration) {
+    synchronized (configuration) {
+      if (configuration.hasStatement(FIND_TRANSACTION_BY_SHAPE, false)) {
+        return FIND_TRANSACTION_BY_SHAPE;
+      }
+      MappedStatement original = configuration.getMappedStatement(FIND_TRANSACTION_BY_CONDITIONS);
+      SqlSource sqlSource = new ShapeSqlSource(configuration, original.getSqlSource());
+      configuration.addMappedStatement(new MappedStatement.Builder(configuration, FIND_TRANSACTION_BY_SHAPE,
+          sqlSource, original.getSqlCommandType())
+          .resource(original.getResource())
+          .fetchSize(original.getFetchSize())
+          .timeout(original.getTimeout())
+          .statementType(original.getStatementType())
+          .resultSetType(original.getResultSetType())
+          .resultMaps(original.getResultMaps())
+          .cache(original.getCache())
+          .flushCacheRequired(original.isFlushCacheRequired())
+          .useCache(original.isUseCache())
+          .databaseId(original.getDatabaseId())
+          .lang(original.getLang())
+          .build());
+      return FIND_TRANSACTION_BY_SHAPE;
+    }
+  }
+
+  /**
+   * findTransactionByConditionsの動的SQLを列名の並びごとに1回だけ評価し、結果をキャッシュするSqlSource.
+   */
+  private static final class ShapeSqlSource implements SqlSource {
+    private final Configuration configuration;
+    private final SqlSource conditionsSqlSource;
+    private final LruCache<List<String>, ShapeSql> shapes = new LruCache<>(MAX_SHAPES);
+
+    ShapeSqlSource(Configuration configuration, SqlSource conditionsSqlSource) {
+      this.configuration = configuration;
+      this.conditionsSqlSource = conditionsSqlSource;
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+      @SuppressWarnings("unchecked")
+      List<String> columns = (List<String>) ((Map<?, ?>) parameterObject).get("columns");
+      ShapeSql shape = shapes.get(columns);
+      if (shape == null) {
+        shape = evaluate(columns);
+        shapes.put(List.copyOf(columns), shape);
+      }
+      return new BoundSql(configuration, shape.sql, shape.parameterMappings, parameterObject);
+    }
+
+    /**
+     * 列名の並びで動的SQLを評価する. 列名は${...}で埋め込まれるので、評価する前に検証する.
+     */
+    private ShapeSql evaluate(List<String> columns) {
+      List<Map<String, String>> conditions = new ArrayList<>(columns.size());
+      for (String column : columns) {
+        conditions.add(Map.of("columnName", SqlIdentifiers.validate(column), "value", ""));
+      }
+      BoundSql boundSql = conditionsSqlSource.getBoundSql(Map.of("conditions", conditions));
+      List<ParameterMapping> mappings = boundSql.getParameterMappings();
+      if (mappings.size() != columns.size()) {
+        throw new IllegalStateException(FIND_TRANSACTION_BY_CONDITIONS + "のパラメータの数が条件の数と一致しません: "
+            + mappings.size() + " != " + columns.size());
+      }
+      // 条件ごとの#{condition.value}は条件の順に並ぶので、i番目をvalues[i]に置き換える
+      List<ParameterMapping> parameterMappings = new ArrayList<>(mappings.size());
+      for (int i = 0; i < mappings.size(); i++) {
+        ParameterMapping mapping = mappings.get(i);
+        parameterMappings.add(new ParameterMapping.Builder(configuration, "values[" + i + "]", mapping.getTypeHandler())
+            .jdbcType(mapping.getJdbcType())
+            .build());
+      }
+      return new ShapeSql(boundSql.getSql(), List.copyOf(parameterMappings));
+    }
+  }
+
+  /**
+   * 1つの条件の形のSQLとパラメータの対応.
+   */
+  private static final class ShapeSql {
+    private final String sql;
+    private final List<ParameterMapping> parameterMappings;
+
+    ShapeSql(String sql, List<ParameterMapping> parameterMappings) {
+      this.sql = sql;
+      this.parameterMappings = parameterMappings;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package org.example;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * T_COLUMNS_FILTERの列だけをSELECTするトランザクションの射影.
+ * {@code SELECT *}の後に{@link Util#filterRecordByColumns}で列を捨てるのではなく、
+ * 不要な列はデータベースから取得しない.
+ * 列名は${...}でSQLに埋め込むため、T_TRANSACTIONの実際の列（INFORMATION_SCHEMA.COLUMNS）と照合したものだけを使う.
+ * フィルタにあってテーブルにない列（GROUPなど後から追加する列）は無視する.
+ *
+ * <pre>
+ * TransactionProjection projection = TransactionProjection.load(session);
+ * List&lt;Map&lt;String, String&gt;&gt; transactions = projection.selectList(session);
+ * </pre>
+ */
+public class TransactionProjection {
+  // トランザクションテーブルから指定した列だけを取得する文
+  public static final String SELECT_TRANSACTIONS_PROJECTED = "org.example.Mapper.selectTransactionsProjected";
+
+  // テーブルの列名を取得する文
+  public static final String SELECT_TABLE_COLUMNS = "org.example.Mapper.selectTableColumns";
+
+  // カラムフィルタテーブルからすべてのカラム名を取得する文
+  public static final String SELECT_COLUMN_FILTERS = "org.example.Mapper.selectColumnFilters";
+
+  // トランザクションテーブル
+  static final String TRANSACTION_TABLE = "T_TRANSACTION";
+
+  private final List<String> columns;
+
+  private TransactionProjection(List<String> columns) {
+    if (columns.isEmpty()) {
+      throw new IllegalStateException("取得する列がありません");
+    }
+    this.columns = List.copyOf(columns);
+  }
+
+  /**
+   * T_COLUMNS_FILTERから射影を作成する.
+   */
+  public static TransactionProjection load(SqlSession session) {
+    Set<String> filterSet = session.<Object>selectList(SELECT_COLUMN_FILTERS).stream()
+        .map(Object::toString)
+        .collect(Collectors.toSet());
+    return of(session, filterSet);
+  }
+
+  /**
+   * 指定したフィルタセットから射影を作成する.
+   *
+   * @param session   SqlSession
+   * @param filterSet 必要な列を定義したフィルタセット
+   */
+  public static TransactionProjection of(SqlSession session, Collection<String> filterSet) {
+    Set<String> filter = new HashSet<>(filterSet);
+    // テーブルの定義順に、フィルタセットにある列だけを残す
+    List<String> columns = session.<String>selectList(SELECT_TABLE_COLUMNS, Map.of("table", TRANSACTION_TABLE))
+        .stream()
+        .filter(filter::contains)
+        .map(SqlIdentifiers::validate)
+        .collect(Collectors.toList());
+    return new TransactionProjection(columns);
+  }
+
+  /**
+   * 取得する列を返す（テーブルの定義順）.
+   */
+  public List<String> columns() {
+    return columns;
+  }
+
+  /**
+   * 射影した列だけのトランザクションを取得する.
+   */
+  public List<Map<String, String>> selectList(SqlSession session) {
+    return session.selectList(SELECT_TRANSACTIONS_PROJECTED, parameter());
+  }
+
+  /**
+   * 射影した列だけのトランザクションを1件ずつ読み込むデータソースを作成する.
+   *
+   * @param session   SqlSession
+   * @param fetchSize JDBCのfetchSize
+   */
+  public TransactionCursorSource cursor(SqlSession session, int fetchSize) {
+    return new TransactionCursorSource(session, SELECT_TRANSACTIONS_PROJECTED, parameter(), fetchSize);
+  }
+
+  private Map<String, Object> parameter() {
+    return Map.of("columns", columns);
+  }
+}
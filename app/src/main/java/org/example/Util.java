@@ -1,7 +1,5 @@
 package org.example;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,14 +11,16 @@ import java.util.stream.Collectors;
 public class Util {
   /**
    * レコードの各カラムのスペースをトリムする関数.
+   * トリムは{@link BatchTrimmer#stripTrailing}で行い、トリム不要の値は同じインスタンスをそのまま使う.
    * 
    * @return スペースをトリムしたレコード
    */
-  public static final Function<Map<String, String>, Map<String, String>> trimSpacesFromColumns = record -> record
-      .entrySet().stream().collect(
-          Collectors.toMap(Map.Entry::getKey,
-              entry -> entry.getValue() != null ? entry.getValue().stripTrailing() : "" // null値を空文字列に置き換え、スペースをトリム
-          ));
+  public static final Function<Map<String, String>, Map<String, String>> trimSpacesFromColumns = record -> {
+    Map<String, String> trimmed = new HashMap<>((int) (record.size() / 0.75f) + 1);
+    // null値を空文字列に置き換え、スペースをトリム
+    record.forEach((key, value) -> trimmed.put(key, BatchTrimmer.stripTrailing(value)));
+    return trimmed;
+  };
 
   /**
    * 項目名と状態項目名のペアに基づいて値を変換する関数.
@@ -29,8 +29,13 @@ public class Util {
    * @param conditions 条件 (例: {"1|3": "@"})
    * @return 変換後のレコード
    */
-  public static final Function<Map<String, String>, Function<String[], Function<Map<String, String>, Map<String, String>>>> transformValues = valuePairs -> conditions -> record -> {
-    return record.entrySet().stream()
+  public static final Function<Map<String, String>, Function<String[], Function<Map<String, String>, Map<String, String>>>> transformValues = valuePairs -> conditions -> {
+    // conditionsは2要素の配列という前提
+    // 正規表現はレコードごとではなく、関数の生成時に一度だけコンパイルする
+    Pattern pattern = Pattern.compile(conditions[0]);
+    String replacement = conditions[1];
+
+    return record -> record.entrySet().stream()
         .collect(Collectors.toMap(
             Map.Entry::getKey,
             entry -> {
@@ -42,12 +47,8 @@ public class Util {
                 String stateColumnName = valuePairs.get(columnName);
                 String stateValue = record.get(stateColumnName);
 
-                // conditionsは2要素の配列という前提
-                String pattern = conditions[0];
-                String replacement = conditions[1];
-
                 // stateValueがnullの場合や条件に一致しない場合は元の値を返す
-                if (stateValue != null && Pattern.matches(pattern, stateValue)) {
+                if (stateValue != null && pattern.matcher(stateValue).matches()) {
                   return replacement;
                 }
               }
@@ -59,34 +60,14 @@ public class Util {
 
   /**
    * 条件に基づいて値を空文字列に置き換える関数.
+   * 正規表現は関数の生成時に{@link ClearRuleSet}で一度だけコンパイルし、単純なものは線形時間で判定する.
    * 
    * @param conditions 条件 (例: {"ITEM1": "^[0-9]+$","ITEM2":"^a$"...})
    * @return 変換後のレコード
    * @param record トランザクションレコード
    * @return 条件に基づいて値を空文字列に置き換えたレコード
    */
-  public static final Function<Map<String, String>, Function<Map<String, String>, Map<String, String>>> clearValuesByConditions = conditions -> record -> {
-    return record.entrySet().stream()
-        .collect(Collectors.toMap(
-            Map.Entry::getKey,
-            entry -> {
-              String columnName = entry.getKey();
-              String columnValue = entry.getValue();
-
-              // conditionsに項目名が含まれている場合のみチェック
-              if (conditions.containsKey(columnName)) {
-                String pattern = conditions.get(columnName);
-
-                // 正規表現にマッチした場合、値を空文字列に置き換える
-                if (columnValue != null && columnValue.matches(pattern)) {
-                  return "";
-                }
-              }
-
-              // 条件に一致しない場合は元の値をそのまま返す
-              return columnValue;
-            }));
-  };
+  public static final Function<Map<String, String>, Function<Map<String, String>, Map<String, String>>> clearValuesByConditions = ClearRuleSet::compile;
   /**
    * グループ化マスタを追加する関数.
    * 
@@ -125,43 +106,21 @@ public class Util {
 
   /**
    * レコードをカンマ区切りの文字列に変換する関数.
+   * 値はダブルクォートで囲み、値の中のダブルクォートは2つ重ねる. 変換は{@link CsvLineEncoder}で行う.
    * 
    * @param columnOrder カラム順序
    * @param record      トランザクションレコード
    * @return カンマ区切りの文字列
    */
-  public static final Function<List<String>, Function<Map<String, String>, String>> convertToCommaSeparatedRecord = columnOrder -> record -> columnOrder
-      .stream().map(key -> "\"" + (record.getOrDefault(key, "") != null ? record.get(key) : "") + "\"")
-      .collect(Collectors.joining(","));
+  public static final Function<List<String>, Function<Map<String, String>, String>> convertToCommaSeparatedRecord = columnOrder -> new CsvLineEncoder(
+      columnOrder)::encode;
 
   /**
    * SHA256ハッシュを計算するメソッド. ビット数:256 バイト数:32 16進数文字列に変換するので64文字の16進数文字列に変換される
+   * 入力文字列はUTF-8でバイト列に変換する. 計算は{@link Sha256Hasher}で行う.
    * 
-   * @throws NoSuchAlgorithmException SHA256アルゴリズムが見つからない場合
    * @param input 入力文字列
    * @return SHA256ハッシュ値
    */
-  public static final Function<String, String> getSHA256Hash = input -> {
-    try {
-      // MessageDigestインスタンスを取得
-      MessageDigest digest = MessageDigest.getInstance("SHA-256");
-
-      // 入力文字列をバイト配列に変換してハッシュを計算
-      byte[] hashBytes = digest.digest(input.getBytes());
-
-      // ハッシュ値を16進数文字列に変換
-      StringBuilder hexString = new StringBuilder();
-      for (byte b : hashBytes) {
-        // バイトを符号なし整数に変換している
-        String hex = Integer.toHexString(0xff & b);
-        if (hex.length() == 1) {
-          hexString.append('0'); // 1桁の場合は先頭に0を追加
-        }
-        hexString.append(hex);
-      }
-      return hexString.toString();
-    } catch (NoSuchAlgorithmException e) {
-      throw new RuntimeException("SHA-256アルゴリズムが見つかりません", e);
-    }
-  };
+  public static final Function<String, String> getSHA256Hash = Sha256Hasher::hash;
 }
@@ -0,0 +1,53 @@
+package org.example;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class BatchTrimmerTest {
+  // 末尾の空白の種類を変えた値
+  private static final String[] VALUES = { "A1", "A1  ", "A1\t\r\n", "値　", "　", "", "A 1 ", " x ", null };
+
+  /**
+   * stripTrailingと同じ結果となり、トリム不要の値は同じインスタンスを返すこと
+   */
+  @Test
+  public void testStripTrailing() {
+    for (String value : VALUES) {
+      String expected = value != null ? value.stripTrailing() : "";
+      String actual = BatchTrimmer.stripTrailing(value);
+      assertEquals(expected, actual);
+      if (value != null && value.equals(expected)) {
+        assertSame(value, actual);
+      }
+    }
+  }
+
+  /**
+   * 配列とレコードのトリムが値ごとの場合と同じになること
+   */
+  @Test
+  public void testTrimBatch() {
+    String[] values = VALUES.clone();
+    assertEquals(7, BatchTrimmer.trimInPlace(values));
+    for (int i = 0; i < VALUES.length; i++) {
+      assertEquals(BatchTrimmer.stripTrailing(VALUES[i]), values[i]);
+    }
+
+    RecordSchema schema = RecordSchema.of("ID", "ITEM1", "ITEM2");
+    List<Record> records = List.of(
+        new Record(schema, new String[] { "1", "A1", "B1" }),
+        new Record(schema, new String[] { "2", "A2  ", null }),
+        new Record(schema, new String[] { "3", "A3", "B3　" }));
+    for (Record record : records) {
+      Record trimmed = BatchTrimmer.trim(record);
+      for (int i = 0; i < schema.size(); i++) {
+        assertEquals(BatchTrimmer.stripTrailing(record.values()[i]), trimmed.values()[i]);
+      }
+    }
+    // トリム不要のレコードはそのまま
+    assertSame(records.get(0), BatchTrimmer.trim(records.get(0)));
+  }
+}
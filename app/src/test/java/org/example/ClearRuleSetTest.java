@@ -0,0 +1,101 @@
+package org.example;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Test;
+
+public class ClearRuleSetTest {
+  // 線形時間で判定できる正規表現
+  private static final List<String> LINEAR_PATTERNS = List.of(
+      "^[0-9]+$", "^a$", "A\\d{2,4}.*", "[^A-Z]*", "\\w+\\s?\\W", "^[a-c-]{0,3}x?$", "[\\d_]{2}", "\\.\\*",
+      ".", "^$", "値[０-９]+", "[😀a]+", "\\S*\\$");
+
+  // Patternで判定する正規表現
+  private static final List<String> FALLBACK_PATTERNS = List.of(
+      "^A|B$", "(ab)+", "a+?", "a*+", "\\bA", "\\p{Alpha}+", "[a-z&&[^b]]+", "a{,2}");
+
+  private static final List<String> INPUTS = List.of(
+      "", "0", "123", "12a", "a", "aa", "A12", "A12345", "A1", "abc", "ABC", "x", "-x", "a-cx", "ab x",
+      "ab\n", "\n", "_1", "12", ".*", "値１２", "😀a😀", "$", "abc$", "A", "B", "ab", "abab", "b");
+
+  /**
+   * 線形時間で判定する正規表現がString.matchesと同じ結果になること
+   */
+  @Test
+  public void testLinearPatternSameAsMatches() {
+    for (String regex : LINEAR_PATTERNS) {
+      LinearPattern pattern = LinearPattern.parse(regex);
+      assertNotNull(regex, pattern);
+      for (String input : INPUTS) {
+        assertEquals(regex + " / " + input, input.matches(regex), pattern.matches(input));
+      }
+    }
+    for (String regex : FALLBACK_PATTERNS) {
+      assertNull(regex, LinearPattern.parse(regex));
+    }
+  }
+
+  /**
+   * 線形時間の判定とPatternでの判定を混ぜても、これまでのclearValuesByConditionsと同じ結果になること
+   */
+  @Test
+  public void testClearValuesSameAsMatches() {
+    Map<String, String> conditions = new HashMap<>();
+    conditions.put("ITEM1", "^[0-9]+$");
+    conditions.put("ITEM2", "^A|B$");
+    conditions.put("ITEM3", "\\d{2}");
+    ClearRuleSet rules = ClearRuleSet.compile(conditions);
+    assertTrue(rules.isLinear("ITEM1"));
+    assertFalse(rules.isLinear("ITEM2"));
+    assertFalse(rules.isLinear("ITEM4"));
+
+    for (String input : INPUTS) {
+      Map<String, String> record = new HashMap<>();
+      record.put("ID", input);
+      record.put("ITEM1", input);
+      record.put("ITEM2", input);
+      record.put("ITEM3", null);
+      Map<String, String> expected = new HashMap<>(record);
+      conditions.forEach((column, regex) -> {
+        String value = record.get(column);
+        if (value != null && Pattern.compile(regex).matcher(value).matches()) {
+          expected.put(column, "");
+        }
+      });
+      assertEquals(expected, Util.clearValuesByConditions.apply(conditions).apply(record));
+      RecordSchema schema = RecordSchema.of("ID", "ITEM1", "ITEM2", "ITEM3");
+      assertEquals(Record.fromMap(schema, expected),
+          RecordUtil.clearValuesByConditions.apply(conditions).apply(Record.fromMap(schema, record)));
+    }
+  }
+
+  /**
+   * Patternが構文エラーとする量指定子は線形時間の判定でも受け付けないこと
+   */
+  @Test
+  public void testInvalidQuantifier() {
+    for (String regex : List.of("a{+2}", "a{2,+3}", "a{-1}", "a{}", "a{ 2}")) {
+      assertNull(regex, LinearPattern.parse(regex));
+      assertThrows(regex, PatternSyntaxException.class, () -> ClearRuleSet.compile(Map.of("ITEM1", regex)));
+    }
+  }
+
+  /**
+   * バックトラックで極端に遅くなる入力でも線形時間で判定できること
+   */
+  @Test(timeout = 5000)
+  public void testNoCatastrophicBacktracking() {
+    String regex = "\\d*\\d*\\d*\\d*\\d*\\d*\\d*\\d*\\d*\\d*x";
+    ClearRuleSet rules = ClearRuleSet.compile(Map.of("ITEM1", regex));
+    assertTrue(rules.isLinear("ITEM1"));
+    String input = "1".repeat(10000);
+    assertFalse(rules.matches("ITEM1", input));
+    assertTrue(rules.matches("ITEM1", input + "x"));
+  }
+}
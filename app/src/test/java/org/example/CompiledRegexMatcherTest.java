@@ -0,0 +1,101 @@
+package org.example;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class CompiledRegexMatcherTest {
+    private static final String[] TRANSACTIONS = {
+            "a2", "100", "cc", "b", "B1", "1B", "0", "x0", "xa", "ya\n", "C", "", "zzz", "\n", "ab", "ba" };
+
+    @Test
+    public void testMatch() {
+        // テスト用のRegexPatternデータを作成
+        RegexPattern[] patterns = {
+                new RegexPattern(new String[] { "^a", "b$" }, "match1"),
+                new RegexPattern(new String[] { "^c" }, "match2")
+        };
+        CompiledRegexMatcher matcher = new CompiledRegexMatcher(patterns);
+
+        assertEquals("match1", matcher.match("a2"));
+        assertNull(matcher.match("100"));
+        assertEquals("match2", matcher.match("cc"));
+        assertEquals("match1", matcher.match("b"));
+    }
+
+    /**
+     * regex_patterns.jsonのルールでregexMatcherと同じ結果になること
+     */
+    @Test
+    public void testMatch_SameAsRegexMatcher() throws Exception {
+        RegexPattern[] regexPatterns = loadRegexPatterns();
+        CompiledRegexMatcher matcher = CompiledRegexMatcher.load("regex_patterns.json");
+
+        for (String transaction : TRANSACTIONS) {
+            assertEquals(transaction, FunctionalJsonRegexMatcher.regexMatcher.apply(transaction, regexPatterns),
+                    matcher.match(transaction));
+        }
+    }
+
+    /**
+     * 1つの選択にまとめられないパターン（後方参照）でも結果が変わらないこと
+     */
+    @Test
+    public void testMatch_Backreference() {
+        RegexPattern[] patterns = {
+                new RegexPattern(new String[] { "(x)y", "^(a)\\1$" }, "double"),
+                new RegexPattern(new String[] { "(?<c>c)", "(?<c>d)" }, "named")
+        };
+        CompiledRegexMatcher matcher = new CompiledRegexMatcher(patterns);
+
+        for (String transaction : new String[] { "aa", "ab", "xy", "c", "d", "e" }) {
+            assertEquals(transaction, FunctionalJsonRegexMatcher.regexMatcher.apply(transaction, patterns),
+                    matcher.match(transaction));
+        }
+    }
+
+    /**
+     * リテラルと位置指定子だけのパターンが文字列比較で判定され、正規表現と同じ結果になること
+     */
+    @Test
+    public void testLiteralPattern_SameAsRegex() {
+        String[] patterns = {
+                "^0|0$", "^a|a$", "^C|C$", "abc", "^abc$", "^$", "^", "$", "", "a||b", "\\.x$", "^\\|", "a\\$" };
+        String[] inputs = {
+                "", "0", "a0", "0a", "abc", "xabc", "abc\n", "abc\r\n", "abc\r", "abc\n\n", "abc\u2028", "C\r\n",
+                "\n", "\r\n", ".x", "..x\n", "|", "a$", "a", "b" };
+
+        for (String pattern : patterns) {
+            LiteralPattern literalPattern = LiteralPattern.parse(pattern);
+            assertNotNull(pattern, literalPattern);
+            for (String input : inputs) {
+                assertEquals(pattern + " / " + input, Pattern.compile(pattern).matcher(input).find(),
+                        literalPattern.find(input));
+            }
+        }
+    }
+
+    /**
+     * 文字列比較で判定できないパターンは正規表現で判定すること
+     */
+    @Test
+    public void testLiteralPattern_NotSimplified() {
+        for (String pattern : new String[] { "a.c", "^[0-9]+$", "a$b", "a^", "\\d", "(a)", "a*", "^^a" }) {
+            assertNull(pattern, LiteralPattern.parse(pattern));
+        }
+    }
+
+    private static RegexPattern[] loadRegexPatterns() throws Exception {
+        try (var reader = new InputStreamReader(
+                CompiledRegexMatcherTest.class.getClassLoader().getResourceAsStream("regex_patterns.json"),
+                StandardCharsets.UTF_8)) {
+            return new Gson().fromJson(reader, RegexPattern[].class);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.example;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class CompiledTransformerTest {
+  // サンプルの valuePairs
+  private static final Map<String, String> VALUE_PAIRS = Map.of(
+      "ITEM1", "STAT-ITEM1",
+      "ITEM2", "STAT-ITEM2"); // ITEM2の状態列は存在しない
+
+  // サンプルの conditions
+  private static final String[] CONDITIONS = new String[] { "1|3", "@" };
+
+  /**
+   * Util.transformValuesと同じ結果になること
+   */
+  @Test
+  public void testApply_SameAsTransformValues() {
+    List<Map<String, String>> transactions = List.of(
+        Map.of("ID", "1", "ITEM1", "A1 ", "ITEM2", " value2 ", "STAT-ITEM1", "3"),
+        Map.of("ID", "2", "ITEM1", " A4", "ITEM2", " value5 ", "STAT-ITEM1", "1"),
+        Map.of("ID", "3", "ITEM1", "B3 ", "ITEM2", " value8 "), // STAT-ITEM1とSTAT-ITEM2が存在しない
+        Map.of("ID", "4", "ITEM2", " value8 ", "STAT-ITEM1", "1"), // ITEM1が存在しない
+        Map.of("ID", "5", "ITEM1", "C1", "STAT-ITEM1", "13")); // 完全一致しない
+
+    Function<Map<String, String>, Map<String, String>> expected = Util.transformValues
+        .apply(VALUE_PAIRS)
+        .apply(CONDITIONS);
+    CompiledTransformer actual = CompiledTransformer.compile(VALUE_PAIRS, CONDITIONS);
+
+    assertEquals(
+        transactions.stream().map(expected).collect(Collectors.toList()),
+        transactions.stream().map(actual).collect(Collectors.toList()));
+  }
+
+  /**
+   * 列番号に解決した変換ルールで値の配列を変換できること
+   */
+  @Test
+  public void testBind() {
+    CompiledTransformer.Bound bound = CompiledTransformer.compile(VALUE_PAIRS, CONDITIONS)
+        .bind(List.of("ID", "ITEM1", "ITEM2", "STAT-ITEM1"));
+
+    assertArrayEquals(new String[] { "1", "@", "value2", "3" },
+        bound.apply(new String[] { "1", "A1", "value2", "3" }));
+    assertArrayEquals(new String[] { "2", "A4", "value5", "2" },
+        bound.apply(new String[] { "2", "A4", "value5", "2" }));
+  }
+
+  /**
+   * 変換がない場合は同じ配列が返り、変換がある場合は元の配列を変更しないこと
+   */
+  @Test
+  public void testBind_CopyOnWrite() {
+    CompiledTransformer.Bound bound = CompiledTransformer.compile(Map.of("A", "B", "B", "A"), CONDITIONS)
+        .bind(List.of("A", "B"));
+
+    String[] unchanged = { "x", "y" };
+    assertSame(unchanged, bound.apply(unchanged));
+
+    // 状態値は変換前の値から取得するので、互いの状態列になっていても両方置き換わる
+    String[] values = { "1", "3" };
+    assertArrayEquals(new String[] { "@", "@" }, bound.apply(values));
+    assertArrayEquals(new String[] { "1", "3" }, values);
+  }
+
+  /**
+   * 設定ファイルからコンパイルできること
+   */
+  @Test
+  public void testCompileFromConfig() throws Exception {
+    CompiledTransformer transformer = CompiledTransformer.compile(CsvParse.loadConfig("config.json"));
+
+    Map<String, String> result = transformer.apply(Map.of(
+        "項目A", "value1", "項目B", "value2", "状態-項目A", "1", "状態-項目B", "2"));
+
+    assertEquals("@", result.get("項目A"));
+    assertEquals("value2", result.get("項目B"));
+  }
+}
@@ -0,0 +1,88 @@
+package org.example;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConfigServiceTest {
+  // 変換の条件だけが異なる設定
+  private static final String CONFIG = "{\"valuePairs\":[{\"item\":\"ITEM1\",\"state\":\"STAT-ITEM1\"}],"
+      + "\"condition\":{\"pattern\":\"%s\",\"replacement\":\"@\"}}";
+
+  private static final String REGEX_PATTERNS = "[{\"patterns\":[\"^%s\"],\"result\":\"hit\"}]";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * 読み込み直すと新しいルールに差し替わり、取得済みのスナップショットは古いルールのままであること.
+   * 読み込みに失敗した場合はそれまでのルールが残ること
+   */
+  @Test
+  public void testReload() throws Exception {
+    Path configFile = write("config.json", String.format(CONFIG, "1"));
+    Path regexFile = write("regex_patterns.json", String.format(REGEX_PATTERNS, "a"));
+    Map<String, String> record = Map.of("ITEM1", "x", "STAT-ITEM1", "2");
+
+    try (ConfigService configs = new ConfigService(configFile, regexFile)) {
+      ConfigService.Snapshot first = configs.snapshot();
+      assertEquals(1, first.getVersion());
+      assertEquals("x", first.getTransformer().apply(record).get("ITEM1"));
+      assertEquals("hit", first.getRegexMatcher().match("abc"));
+      // 取得した設定を変更してもスナップショットは変わらない
+      first.getConfig().getCondition().setPattern("2");
+      assertEquals("1", first.getConfig().getCondition().getPattern());
+      assertNotSame(first.getConfig(), first.getConfig());
+
+      write("config.json", String.format(CONFIG, "2"));
+      write("regex_patterns.json", String.format(REGEX_PATTERNS, "b"));
+      assertTrue(configs.reload());
+      ConfigService.Snapshot second = configs.snapshot();
+      assertEquals(2, second.getVersion());
+      assertEquals("@", second.getTransformer().apply(record).get("ITEM1"));
+      assertNull(second.getRegexMatcher().match("abc"));
+      // 取得済みのスナップショットは変わらない
+      assertEquals("x", first.getTransformer().apply(record).get("ITEM1"));
+
+      write("config.json", "{");
+      assertFalse(configs.reload());
+      assertSame(second, configs.snapshot());
+      assertEquals(1, configs.failures());
+      assertNotNull(configs.lastFailure());
+
+      Map<String, Number> metrics = configs.metrics();
+      assertEquals(2L, metrics.get("version"));
+      assertEquals(1L, metrics.get("reloads"));
+      assertEquals(2, configs.reloadLatency().count());
+    }
+  }
+
+  /**
+   * ファイルを書き換えると監視スレッドが読み込み直すこと
+   */
+  @Test(timeout = 30000)
+  public void testWatch() throws Exception {
+    Path configFile = write("config.json", String.format(CONFIG, "1"));
+    Path regexFile = write("regex_patterns.json", String.format(REGEX_PATTERNS, "a"));
+
+    try (ConfigService configs = new ConfigService(configFile, regexFile)) {
+      configs.start();
+      write("regex_patterns.json", String.format(REGEX_PATTERNS, "b"));
+      while (configs.snapshot().getVersion() == 1) {
+        Thread.sleep(50);
+      }
+      assertEquals("hit", configs.snapshot().getRegexMatcher().match("bcd"));
+    }
+  }
+
+  private Path write(String name, String content) throws Exception {
+    return Files.write(folder.getRoot().toPath().resolve(name), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
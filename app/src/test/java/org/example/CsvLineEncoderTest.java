@@ -0,0 +1,68 @@
+package org.example;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class CsvLineEncoderTest {
+  private static final List<String> COLUMN_ORDER = List.of("ID", "ITEM1", "ITEM2", "ITEM3");
+
+  /**
+   * カラムがない場合は"null"、値がnullの場合は空文字列となり、ダブルクォートがエスケープされること
+   */
+  @Test
+  public void testEncode() {
+    Map<String, String> record = new HashMap<>();
+    record.put("ID", "1");
+    record.put("ITEM1", "say \"hi\", \"");
+    record.put("ITEM2", null);
+    CsvLineEncoder encoder = new CsvLineEncoder(COLUMN_ORDER);
+
+    String expected = "\"1\",\"say \"\"hi\"\", \"\"\",\"\",\"null\"";
+    assertEquals(expected, encoder.encode(record));
+    assertEquals(expected, Util.convertToCommaSeparatedRecord.apply(COLUMN_ORDER).apply(record));
+    // 2回目もスレッドごとのStringBuilderを使い回して同じ結果となる
+    assertEquals(expected, encoder.encode(record));
+    assertEquals(expected, RecordUtil.convertToCommaSeparatedRecord.apply(COLUMN_ORDER).apply(Record.fromMap(record)));
+  }
+
+  /**
+   * ブロックの大きさに関わらず、WriterとチャネルのSinkで同じ内容が書き出されること
+   */
+  @Test
+  public void testSink() throws Exception {
+    CsvLineEncoder encoder = new CsvLineEncoder(COLUMN_ORDER);
+    StringBuilder expected = new StringBuilder();
+    List<Map<String, String>> records = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Map<String, String> record = Map.of("ID", String.valueOf(i), "ITEM1", "値" + i, "ITEM2", "\"" + i + "\"",
+          "ITEM3", "😀");
+      records.add(record);
+      expected.append(encoder.encode(record)).append("\r\n");
+    }
+
+    for (int blockSize : new int[] { 1, 7, 1024 }) {
+      StringWriter writer = new StringWriter();
+      try (CsvLineEncoder.Sink sink = encoder.to(writer, blockSize)) {
+        records.forEach(sink);
+        assertEquals(100, sink.lines());
+      }
+      assertEquals(expected.toString(), writer.toString());
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (CsvLineEncoder.Sink sink = encoder.to(Channels.newChannel(bytes), blockSize)) {
+        records.forEach(sink);
+      }
+      assertEquals(expected.toString(), bytes.toString(StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -0,0 +1,251 @@
+package org.example;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CsvParseTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  /**
+   * ストリーミング処理の出力が従来のprocessCsvの出力とバイト単位で一致すること
+   */
+  @Test
+  public void testProcessCsvStreaming_SameAsProcessCsv() throws Exception {
+    CsvParse.Config config = CsvParse.loadConfig("config.json");
+    File expected = temporaryFolder.newFile("expected.csv");
+    File actual = temporaryFolder.newFile("actual.csv");
+
+    CsvParse.processCsv("input.csv", expected.getPath(), config);
+    CsvParse.processCsvStreaming("input.csv", actual.getPath(), config);
+
+    assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+  }
+
+  /**
+   * 状態項目が条件に一致する項目だけが置き換えられること
+   */
+  @Test
+  public void testProcessCsvStreaming_TransformValues() throws Exception {
+    CsvParse.Config config = CsvParse.loadConfig("config.json");
+    String input = "項目A,項目B,項目C,状態-項目A,状態-項目B,状態-項目C\n"
+        + "value1,value2,value3,1,2,3\n"
+        + "\"va,l\"\"ue4\",\"value\n5\",value6,2,3,1\n";
+    StringWriter writer = new StringWriter();
+
+    CsvParse.processCsvStreaming(new StringReader(input), writer, config);
+
+    assertEquals("項目A,項目B,項目C,状態-項目A,状態-項目B,状態-項目C\r\n"
+        + "@,value2,value3,1,2,3\r\n"
+        + "\"va,l\"\"ue4\",@,value6,2,3,1\r\n", writer.toString());
+  }
+
+  /**
+   * 並列処理の出力がストリーミング処理の出力と一致すること（クォート内の改行を含む）
+   */
+  @Test
+  public void testProcessCsvParallel_SameAsStreaming() throws Exception {
+    CsvParse.Config config = CsvParse.loadConfig("config.json");
+    config.setWorkers(4);
+    String input = generateCsv(2000);
+
+    StringWriter expected = new StringWriter();
+    CsvParse.processCsvStreaming(new StringReader(input), expected, config);
+
+    // チャンクを小さくして多数のチャンクに分割させる
+    for (int chunkLength : new int[] { 1, 100, 4096, Integer.MAX_VALUE }) {
+      StringWriter actual = new StringWriter();
+      CsvParse.processCsvParallel(new StringReader(input), actual, config, chunkLength);
+      assertEquals("chunkLength=" + chunkLength, expected.toString(), actual.toString());
+    }
+  }
+
+  /**
+   * 改行がCRだけの入力や、CRLFが読み込みの境界で分かれる入力でもすべてのレコードを処理すること
+   */
+  @Test
+  public void testProcessCsvParallel_CarriageReturn() throws Exception {
+    CsvParse.Config config = CsvParse.loadConfig("config.json");
+    config.setWorkers(2);
+    String crOnly = "項目A,項目B,状態-項目A,状態-項目B\r"
+        + "value1,\"va\rlue2\",1,2\r"
+        + "value3,value4,3,1\r"
+        + "value5,value6,2,2";
+
+    StringWriter expected = new StringWriter();
+    CsvParse.processCsvStreaming(new StringReader(crOnly), expected, config);
+    assertEquals(4, expected.toString().split("\r\n", -1).length - 1);
+    for (int chunkLength : new int[] { 1, 20, Integer.MAX_VALUE }) {
+      StringWriter actual = new StringWriter();
+      CsvParse.processCsvParallel(new StringReader(crOnly), actual, config, chunkLength);
+      assertEquals("chunkLength=" + chunkLength, expected.toString(), actual.toString());
+    }
+
+    // 1文字ずつ読み込ませ、CRとLFを別々の読み込みにする
+    String input = generateCsv(200);
+    expected = new StringWriter();
+    CsvParse.processCsvStreaming(new StringReader(input), expected, config);
+    StringWriter actual = new StringWriter();
+    Reader oneCharReader = new FilterReader(new StringReader(input)) {
+      @Override
+      public int read(char[] buffer, int offset, int length) throws IOException {
+        return super.read(buffer, offset, Math.min(length, 1));
+      }
+    };
+    CsvParse.processCsvParallel(oneCharReader, actual, config, 1);
+    assertEquals(expected.toString(), actual.toString());
+  }
+
+  /**
+   * ヘッダーだけの入力も処理できること
+   */
+  @Test
+  public void testProcessCsvParallel_HeaderOnly() throws Exception {
+    CsvParse.Config config = CsvParse.loadConfig("config.json");
+    config.setWorkers(2);
+    String input = "項目A,項目B,状態-項目A,状態-項目B\n";
+
+    StringWriter expected = new StringWriter();
+    CsvParse.processCsvStreaming(new StringReader(input), expected, config);
+    StringWriter actual = new StringWriter();
+    CsvParse.processCsvParallel(new StringReader(input), actual, config, 10);
+
+    assertEquals(expected.toString(), actual.toString());
+  }
+
+  /**
+   * メモリマップ処理の出力をパースした結果がストリーミング処理の出力と一致すること（ウィンドウの再マップを含む）
+   */
+  @Test
+  public void testProcessCsvMapped_SameValuesAsStreaming() throws Exception {
+    CsvParse.Config config = CsvParse.loadConfig("config.json");
+    String input = generateCsv(2000);
+    File inputFile = temporaryFolder.newFile("input.csv");
+    Files.write(inputFile.toPath(), input.getBytes(StandardCharsets.UTF_8));
+
+    StringWriter expected = new StringWriter();
+    CsvParse.processCsvStreaming(new StringReader(input), expected, config);
+
+    // ウィンドウを小さくして行がウィンドウをまたぐようにし、出力のバッファも行より小さくする
+    config.setBufferSize(16);
+    for (int windowSize : new int[] { 1, 7, 4096, MappedCsvReader.DEFAULT_WINDOW_SIZE }) {
+      File actual = temporaryFolder.newFile("actual" + windowSize + ".csv");
+      CsvParse.processCsvMapped(inputFile.toPath(), actual.toPath(), config, windowSize);
+      StringWriter normalized = new StringWriter();
+      CsvParse.processCsvStreaming(Files.newBufferedReader(actual.toPath()), normalized, config);
+      assertEquals("windowSize=" + windowSize, expected.toString(), normalized.toString());
+    }
+  }
+
+  /**
+   * 変換のない行は入力のバイト列のまま、変換のある行は変換のないフィールドの書式を保って出力されること
+   */
+  @Test
+  public void testProcessCsvMapped_PassThrough() throws Exception {
+    CsvParse.Config config = CsvParse.loadConfig("config.json");
+    String input = "項目A,項目B,項目C,状態-項目A,状態-項目B,状態-項目C\n"
+        + "\"value1\",value2,value3,0,2,3\r\n"
+        + "\n"
+        + "\"va,l\"\"ue4\",\"value\n5\",value6,2,3,1\r\n"
+        + "value7,value8";
+    File inputFile = temporaryFolder.newFile("input.csv");
+    Files.write(inputFile.toPath(), input.getBytes(StandardCharsets.UTF_8));
+    File actual = temporaryFolder.newFile("actual.csv");
+
+    CsvParse.processCsvMapped(inputFile.toPath(), actual.toPath(), config);
+
+    assertEquals("項目A,項目B,項目C,状態-項目A,状態-項目B,状態-項目C\n"
+        + "\"value1\",value2,value3,0,2,3\r\n"
+        + "\n"
+        + "\"va,l\"\"ue4\",@,value6,2,3,1\r\n"
+        + "value7,value8",
+        new String(Files.readAllBytes(actual.toPath()), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * ファイルがない場合はクラスパスから読み込み、.gzのファイルはgzipで読み書きできること
+   */
+  @Test
+  public void testProcessCsvPath_ClasspathFallbackAndGzip() throws Exception {
+    CsvParse.Config config = CsvParse.loadConfig(Path.of("config.json"));
+    config.setBufferSize(16);
+    File expected = temporaryFolder.newFile("expected.csv");
+    CsvParse.processCsv("input.csv", expected.getPath(), config);
+
+    // クラスパスの入力をgzipで書き出す
+    Path gzip = temporaryFolder.getRoot().toPath().resolve("output.csv.gz");
+    CsvParse.processCsvStreaming(Path.of("input.csv"), gzip, config);
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(gzip))) {
+      assertArrayEquals(Files.readAllBytes(expected.toPath()), in.readAllBytes());
+    }
+
+    // gzipのファイルを入力にする（変換済みの項目は再度変換しても同じ値になる）
+    for (int workers : new int[] { 1, 2 }) {
+      config.setWorkers(workers);
+      Path actual = temporaryFolder.getRoot().toPath().resolve("actual" + workers + ".csv");
+      if (workers > 1) {
+        CsvParse.processCsvParallel(gzip, actual, config);
+      } else {
+        CsvParse.processCsv(gzip, actual, config);
+      }
+      assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual));
+    }
+  }
+
+  /**
+   * ファイルもリソースもない場合はNoSuchFileExceptionとなること
+   */
+  @Test(expected = NoSuchFileException.class)
+  public void testLoadConfigPath_NotFound() throws Exception {
+    CsvParse.loadConfig(temporaryFolder.getRoot().toPath().resolve("missing.json"));
+  }
+
+  /**
+   * gzipでない.gzのファイルはZipExceptionとなること（開いたファイルは閉じる）
+   */
+  @Test(expected = ZipException.class)
+  public void testNewReader_InvalidGzip() throws Exception {
+    Path invalid = temporaryFolder.newFile("invalid.csv.gz").toPath();
+    Files.write(invalid, "項目A\r\n".getBytes(StandardCharsets.UTF_8));
+    CsvParse.newReader(invalid, CsvParse.DEFAULT_BUFFER_SIZE);
+  }
+
+  private static String generateCsv(int rows) {
+    Random random = new Random(0);
+    String[] values = { "value", "va,lue", "va\"lue", "multi\nline", "crlf\r\nline", "", " spaced ", "日本語" };
+    StringBuilder csv = new StringBuilder("項目A,項目B,項目C,状態-項目A,状態-項目B,状態-項目C\r\n");
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < 6; column++) {
+        String value = column < 3 ? values[random.nextInt(values.length)] + row
+            : String.valueOf(random.nextInt(4));
+        csv.append(column > 0 ? "," : "");
+        if (value.matches("(?s).*[,\"\r\n].*") || random.nextBoolean()) {
+          csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+        } else {
+          csv.append(value);
+        }
+      }
+      csv.append(random.nextBoolean() ? "\r\n" : "\n");
+    }
+    return csv.toString();
+  }
+}
@@ -0,0 +1,97 @@
+package org.example;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class EnrichmentStageTest {
+  // グループ化マスタ
+  private static final Map<String, String[]> GROUP_MASTER = Map.of(
+      "A1", new String[] { "GROUP-A" },
+      "B3", new String[] { "GROUP-B" });
+
+  // 商品マスタ（名称と区分）
+  private static final Map<String, String[]> PRODUCT_MASTER = Map.of(
+      "P1", new String[] { "りんご", "果物" },
+      "P2", new String[] { "だいこん", null });
+
+  private static final EnrichmentStage.Join GROUP_JOIN = new EnrichmentStage.Join("ITEM1", "T_GROUP_MASTER",
+      "ITEM1", List.of("GROUP_NAME"), List.of("GROUP"), EnrichmentStage.DefaultPolicy.USE_KEY);
+
+  private static final EnrichmentStage.Join PRODUCT_JOIN = new EnrichmentStage.Join("ITEM2", "T_PRODUCT",
+      "PRODUCT_ID", List.of("NAME", "KIND"), List.of("PRODUCT_NAME", "PRODUCT_KIND"),
+      EnrichmentStage.DefaultPolicy.EMPTY);
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  /**
+   * ITEM1とGROUPの結合はUtil.addGroupColumnと同じ結果になること
+   */
+  @Test
+  public void testSameAsAddGroupColumn() {
+    EnrichmentStage enrich = EnrichmentStage.load(List.of(GROUP_JOIN), join -> GROUP_MASTER, executor);
+    Map<String, String> groupMaster = new HashMap<>();
+    GROUP_MASTER.forEach((key, values) -> groupMaster.put(key, values[0]));
+
+    Map<String, String> noItem1 = new HashMap<>();
+    noItem1.put("ID", "4");
+    for (Map<String, String> transaction : List.of(Map.of("ID", "1", "ITEM1", "A1"),
+        Map.of("ID", "2", "ITEM1", "A4"), noItem1)) {
+      assertEquals(Util.addGroupColumn.apply(groupMaster).apply(transaction), enrich.apply(transaction));
+    }
+  }
+
+  /**
+   * 複数のマスタを結合し、キーがない場合は既定の値を出力すること
+   */
+  @Test
+  public void testMultipleMasters() {
+    EnrichmentStage enrich = EnrichmentStage.load(List.of(GROUP_JOIN, PRODUCT_JOIN),
+        join -> join == GROUP_JOIN ? GROUP_MASTER : PRODUCT_MASTER, executor);
+
+    Map<String, String> hit = enrich.apply(Map.of("ID", "1", "ITEM1", "B3", "ITEM2", "P1"));
+    assertEquals(Map.of("ID", "1", "ITEM1", "B3", "ITEM2", "P1",
+        "GROUP", "GROUP-B", "PRODUCT_NAME", "りんご", "PRODUCT_KIND", "果物"), hit);
+
+    Map<String, String> miss = enrich.apply(Map.of("ID", "2", "ITEM1", "C9", "ITEM2", "P9"));
+    assertEquals(Map.of("ID", "2", "ITEM1", "C9", "ITEM2", "P9",
+        "GROUP", "C9", "PRODUCT_NAME", "", "PRODUCT_KIND", ""), miss);
+
+    // マスタの値がnullの場合はnullを出力する
+    assertNull(enrich.apply(Map.of("ITEM2", "P2")).get("PRODUCT_KIND"));
+  }
+
+  /**
+   * マスタの読み込みに失敗した場合は例外となること
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testLoadFailure() {
+    EnrichmentStage.load(List.of(GROUP_JOIN, PRODUCT_JOIN), join -> {
+      if (join == PRODUCT_JOIN) {
+        throw new IllegalStateException("読み込みに失敗");
+      }
+      return GROUP_MASTER;
+    }, executor);
+  }
+
+  /**
+   * 識別子として正しくないテーブル名は例外となること
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidTable() {
+    new EnrichmentStage.Join("ITEM1", "T_GROUP_MASTER WHERE 1=1", "ITEM1", List.of("GROUP_NAME"),
+        List.of("GROUP"), EnrichmentStage.DefaultPolicy.USE_KEY);
+  }
+}
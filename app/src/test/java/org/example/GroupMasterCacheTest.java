@@ -0,0 +1,93 @@
+package org.example;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class GroupMasterCacheTest {
+  // グループ化マスタ
+  private static final Map<String, String> GROUP_MASTER = Map.of(
+      "A1", "GROUP-A",
+      "A2", "GROUP-A",
+      "B3", "GROUP-B");
+
+  // トランザクションデータ
+  private static final List<Map<String, String>> TRANSACTIONS = List.of(
+      Map.of("ID", "1", "ITEM1", "A1"),
+      Map.of("ID", "2", "ITEM1", "A4"),
+      Map.of("ID", "3", "ITEM1", "B3"),
+      Map.of("ID", "4"));
+
+  /**
+   * addGroupColumnにMapと同じように渡せて、参照の回数が数えられること
+   */
+  @Test
+  public void testAddGroupColumn_SameAsMap() {
+    GroupMasterCache cache = new GroupMasterCache(() -> GROUP_MASTER);
+
+    // Map.ofはnullのキーで例外となるので、HashMapと比較する
+    Map<String, String> groupMaster = new HashMap<>(GROUP_MASTER);
+    for (Map<String, String> transaction : TRANSACTIONS) {
+      assertEquals(Util.addGroupColumn.apply(groupMaster).apply(transaction),
+          Util.addGroupColumn.apply(cache).apply(transaction));
+    }
+    assertEquals(2, cache.hits());
+    assertEquals(2, cache.misses());
+    assertEquals(GROUP_MASTER, cache);
+    assertEquals(GROUP_MASTER.hashCode(), cache.hashCode());
+  }
+
+  /**
+   * 読み込み直すと新しい内容に差し替わること. 失敗した場合はそれまでの内容が残ること
+   */
+  @Test
+  public void testRefresh() {
+    AtomicReference<Map<String, String>> source = new AtomicReference<>(GROUP_MASTER);
+    GroupMasterCache cache = new GroupMasterCache(() -> {
+      Map<String, String> groupMaster = source.get();
+      if (groupMaster == null) {
+        throw new IllegalStateException("読み込みに失敗");
+      }
+      return groupMaster;
+    });
+    assertEquals("GROUP-A", cache.get("A1"));
+
+    source.set(Map.of("A1", "GROUP-X"));
+    assertEquals(1, cache.refresh());
+    assertEquals("GROUP-X", cache.get("A1"));
+    assertNull(cache.get("B3"));
+
+    source.set(null);
+    assertThrows(IllegalStateException.class, cache::refresh);
+    assertEquals("GROUP-X", cache.get("A1"));
+  }
+
+  /**
+   * 衝突の多い件数でもHashMapと同じ結果になること. nullの値も保持すること
+   */
+  @Test
+  public void testCompactStringMap() {
+    Map<String, String> map = IntStream.range(0, 1000).boxed()
+        .collect(Collectors.toMap(i -> "K" + i, i -> "V" + i));
+    map.put("NULL", null);
+    CompactStringMap<String> compact = new CompactStringMap<>(map);
+
+    assertEquals(map.size(), compact.size());
+    map.forEach((key, value) -> assertEquals(value, compact.get(key)));
+    assertTrue(compact.containsKey("NULL"));
+    assertEquals("default", compact.getOrDefault("K1000", "default"));
+    assertNull(compact.getOrDefault("NULL", "default"));
+
+    Map<String, String> copy = new HashMap<>();
+    compact.forEach(copy::put);
+    assertEquals(map, copy);
+    assertEquals(0, new CompactStringMap<String>(Map.of()).size());
+  }
+}
@@ -0,0 +1,33 @@
+package org.example;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+  /**
+   * パーセンタイルがバケットの上限（最大値を超えない）で返ること
+   */
+  @Test
+  public void testPercentile() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.percentileNanos(99));
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i * 1000L);
+    }
+    assertEquals(100, histogram.count());
+    assertEquals(100_000, histogram.maxNanos());
+    assertEquals(50_500, histogram.meanNanos(), 0.0);
+
+    // 50000ナノ秒は[32768, 65535]のバケット
+    assertEquals(65_535, histogram.percentileNanos(50));
+    assertEquals(100_000, histogram.percentileNanos(100));
+    assertEquals(1023, histogram.percentileNanos(0));
+
+    histogram.record(-1);
+    assertEquals(0, LatencyHistogram.bucketOf(0));
+    histogram.reset();
+    assertEquals(0, histogram.count());
+    assertEquals(0, histogram.maxNanos());
+  }
+}
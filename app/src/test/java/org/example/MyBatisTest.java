@@ -1,18 +1,28 @@
 package org.example;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedReader;
 import java.io.Reader;
+import java.io.StringWriter;
+import java.sql.Statement;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.apache.ibatis.exceptions.PersistenceException;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -72,8 +82,16 @@ public class MyBatisTest {
     // テストメソッド名に応じてデータファイルを返す
     switch (testName) {
       case "testProcessTransactions":
+      case "testProcessTransactionsWithRecordPipeline":
+      case "testProcessTransactionsWithCursor":
+      case "testWriteTransactionsWithBatchRecordWriter":
+      case "testProcessTransactionsWithGroupMasterCache":
+      case "testProcessTransactionsWithEnrichmentStage":
+      case "testProcessTransactionsWithProjection":
         return "data_case1.sql";
       case "testFindTransactionByConditions":
+      case "testFindTransactionByConditionsPartitioned":
+      case "testFindTransactionByConditionsWithFinder":
         return "data_case2.sql";
       default:
         return null; // デフォルトではデータファイルを使用しない
@@ -214,6 +232,246 @@ public class MyBatisTest {
     }
   }
 
+  /**
+   * `processTransactions`と同じ処理をRecordPipelineで1パスに融合して行う
+   */
+  @Test
+  public void testProcessTransactionsWithRecordPipeline() {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      // グループ化マスタを取得
+      @SuppressWarnings("unchecked")
+      Map<String, String> groupMaster = session.selectList("org.example.Mapper.selectGroupMaster").stream()
+          .map(record -> (Map<String, String>) record)
+          .collect(Collectors.toMap(
+              record -> (String) record.get("ITEM1"),
+              record -> (String) record.get("GROUP_NAME")));
+
+      // フィルタセットを取得
+      Set<String> filterSet = session.selectList("org.example.Mapper.selectColumnFilters").stream()
+          .map(Object::toString)
+          .collect(Collectors.toSet());
+
+      // カラム順序
+      List<String> columnOrder = List.of("ID", "ITEM1", "GROUP");
+
+      // 一連の関数を1パスに融合
+      Function<Map<String, String>, String> pipeline = RecordPipeline.builder()
+          .trimSpacesFromColumns()
+          .addGroupColumn(groupMaster)
+          .filterRecordByColumns(filterSet)
+          .toCommaSeparatedRecord(columnOrder);
+
+      // トランザクションデータを取得
+      List<Map<String, String>> transactions = session.selectList("org.example.Mapper.selectAllTransactions");
+      List<String> result = transactions.stream().map(pipeline).collect(Collectors.toList());
+
+      // 検証
+      assertEquals(3, result.size());
+      assertEquals("\"1\",\"A1\",\"GROUP-A\"", result.get(0)); // レコード1
+      assertEquals("\"2\",\" A4\",\" A4\"", result.get(1)); // レコード2
+      assertEquals("\"3\",\"B3\",\"GROUP-B\"", result.get(2)); // レコード3
+    }
+  }
+
+  /**
+   * `processTransactions`と同じ処理をカーソルで1件ずつ読み込みながら行う
+   */
+  @Test
+  public void testProcessTransactionsWithCursor() throws Exception {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      // グループ化マスタを取得
+      @SuppressWarnings("unchecked")
+      Map<String, String> groupMaster = session.selectList("org.example.Mapper.selectGroupMaster").stream()
+          .map(record -> (Map<String, String>) record)
+          .collect(Collectors.toMap(
+              record -> (String) record.get("ITEM1"),
+              record -> (String) record.get("GROUP_NAME")));
+
+      // フィルタセットを取得
+      Set<String> filterSet = session.selectList("org.example.Mapper.selectColumnFilters").stream()
+          .map(Object::toString)
+          .collect(Collectors.toSet());
+
+      // カラム順序
+      List<String> columnOrder = List.of("ID", "ITEM1", "GROUP");
+
+      // トランザクションデータを1件ずつ読み込んで書き出す（fetchSizeは行数より小さくする）
+      TransactionCursorSource source = new TransactionCursorSource(session,
+          TransactionCursorSource.SELECT_ALL_TRANSACTIONS, null, 2);
+      StringWriter writer = new StringWriter();
+      long count = source.export(Util.trimSpacesFromColumns
+          .andThen(Util.addGroupColumn.apply(groupMaster))
+          .andThen(Util.filterRecordByColumns.apply(filterSet))
+          .andThen(Util.convertToCommaSeparatedRecord.apply(columnOrder)), writer);
+
+      // 検証
+      assertEquals(3, count);
+      assertEquals("\"1\",\"A1\",\"GROUP-A\"\r\n" // レコード1
+          + "\"2\",\" A4\",\" A4\"\r\n" // レコード2
+          + "\"3\",\"B3\",\"GROUP-B\"\r\n", writer.toString()); // レコード3
+
+      // fetchSizeを指定した文が作成されていること
+      assertEquals(Integer.valueOf(2), session.getConfiguration()
+          .getMappedStatement(TransactionCursorSource.SELECT_ALL_TRANSACTIONS + "#fetchSize=2").getFetchSize());
+    }
+  }
+
+  /**
+   * グループ化マスタをGroupMasterCacheに読み込んでaddGroupColumnに渡す
+   */
+  @Test
+  public void testProcessTransactionsWithGroupMasterCache() throws Exception {
+    GroupMasterCache groupMaster = GroupMasterCache.load(sqlSessionFactory);
+    assertEquals(3, groupMaster.size());
+
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      // カラム順序
+      List<String> columnOrder = List.of("ID", "ITEM1", "GROUP");
+
+      // トランザクションデータを取得
+      List<Map<String, String>> transactions = session.selectList("org.example.Mapper.selectAllTransactions");
+      List<String> result = transactions.stream()
+          .map(Util.trimSpacesFromColumns)
+          .map(Util.addGroupColumn.apply(groupMaster))
+          .map(Util.convertToCommaSeparatedRecord.apply(columnOrder)).collect(Collectors.toList());
+
+      // 検証
+      assertEquals(List.of("\"1\",\"A1\",\"GROUP-A\"", "\"2\",\" A4\",\" A4\"", "\"3\",\"B3\",\"GROUP-B\""), result);
+      assertEquals(2, groupMaster.hits());
+      assertEquals(1, groupMaster.misses());
+
+      // マスタを更新して読み込み直す
+      session.getConnection().createStatement()
+          .execute("UPDATE T_GROUP_MASTER SET GROUP_NAME = 'GROUP-X' WHERE ITEM1 = 'A1'");
+    }
+    groupMaster.refresh();
+    assertEquals("GROUP-X", groupMaster.get("A1"));
+  }
+
+  /**
+   * 複数のマスタを並列に読み込んで1パスで結合する
+   */
+  @Test
+  public void testProcessTransactionsWithEnrichmentStage() {
+    // ITEM1でグループ化マスタを、IDでユーザーを結合する
+    EnrichmentStage enrich = EnrichmentStage.load(sqlSessionFactory, List.of(
+        new EnrichmentStage.Join("ITEM1", "T_GROUP_MASTER", "ITEM1", List.of("GROUP_NAME"), List.of("GROUP"),
+            EnrichmentStage.DefaultPolicy.USE_KEY),
+        new EnrichmentStage.Join("ID", "users", "user_id", List.of("user_name"), List.of("USER_NAME"),
+            EnrichmentStage.DefaultPolicy.NULL)));
+
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      // カラム順序
+      List<String> columnOrder = List.of("ID", "ITEM1", "GROUP", "USER_NAME");
+
+      // トランザクションデータを取得
+      List<Map<String, String>> transactions = session.selectList("org.example.Mapper.selectAllTransactions");
+      List<String> result = transactions.stream()
+          .map(Util.trimSpacesFromColumns)
+          .map(enrich)
+          .map(Util.convertToCommaSeparatedRecord.apply(columnOrder)).collect(Collectors.toList());
+
+      // 検証
+      assertEquals(3, result.size());
+      assertEquals("\"1\",\"A1\",\"GROUP-A\",\"Alice\"", result.get(0)); // レコード1
+      assertEquals("\"2\",\" A4\",\" A4\",\"Bob\"", result.get(1)); // レコード2
+      assertEquals("\"3\",\"B3\",\"GROUP-B\",\"Charlie\"", result.get(2)); // レコード3
+    }
+  }
+
+  /**
+   * T_COLUMNS_FILTERの列だけをSELECTし、filterRecordByColumnsを使わずに同じ結果になること
+   */
+  @Test
+  public void testProcessTransactionsWithProjection() {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      // グループ化マスタを取得
+      GroupMasterCache groupMaster = GroupMasterCache.load(sqlSessionFactory);
+
+      // フィルタセットから射影を作成（GROUPはテーブルにないので含まれない）
+      TransactionProjection projection = TransactionProjection.load(session);
+      assertEquals(List.of("ID", "ITEM1"), projection.columns());
+
+      // カラム順序
+      List<String> columnOrder = List.of("ID", "ITEM1", "GROUP");
+
+      // 射影した列だけのトランザクションデータを取得
+      List<Map<String, String>> transactions = projection.selectList(session);
+      assertEquals(Set.of("ID", "ITEM1"), transactions.get(0).keySet());
+
+      List<String> result = transactions.stream()
+          .map(Util.trimSpacesFromColumns)
+          .map(Util.addGroupColumn.apply(groupMaster))
+          .map(Util.convertToCommaSeparatedRecord.apply(columnOrder)).collect(Collectors.toList());
+
+      // 検証
+      assertEquals(3, result.size());
+      assertEquals("\"1\",\"A1\",\"GROUP-A\"", result.get(0)); // レコード1
+      assertEquals("\"2\",\" A4\",\" A4\"", result.get(1)); // レコード2
+      assertEquals("\"3\",\"B3\",\"GROUP-B\"", result.get(2)); // レコード3
+
+      // カーソルでも同じ列だけを取得する
+      projection.cursor(session, 2)
+          .forEach(transaction -> assertEquals(Set.of("ID", "ITEM1"), transaction.keySet()));
+
+      // テーブルにない列名はSQLに埋め込まれない
+      assertEquals(List.of("ITEM2"),
+          TransactionProjection.of(session, Set.of("ITEM2", "ITEM1 FROM users --")).columns());
+    }
+  }
+
+  /**
+   * 変換したトランザクションをバッチでテーブルに追加する
+   */
+  @Test
+  public void testWriteTransactionsWithBatchRecordWriter() {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      // グループ化マスタを取得
+      @SuppressWarnings("unchecked")
+      Map<String, String> groupMaster = session.selectList("org.example.Mapper.selectGroupMaster").stream()
+          .map(record -> (Map<String, String>) record)
+          .collect(Collectors.toMap(
+              record -> (String) record.get("ITEM1"),
+              record -> (String) record.get("GROUP_NAME")));
+
+      // トランザクションデータを1件ずつ変換してGROUP列をGROUP_NAMEに追加する（2件ごとにコミット）
+      try (Stream<Map<String, String>> transactions = new TransactionCursorSource(session).stream();
+          BatchRecordWriter writer = new BatchRecordWriter(sqlSessionFactory, "T_TRANSACTION_EXPORT",
+              List.of("ID", "ITEM1", "GROUP_NAME"), List.of("ID", "ITEM1", "GROUP"), 2)) {
+        assertEquals(3, writer.writeAll(transactions
+            .map(Util.trimSpacesFromColumns)
+            .map(Util.addGroupColumn.apply(groupMaster))));
+      }
+
+      // 検証
+      List<Map<String, String>> exports = session.selectList("org.example.Mapper.selectAllTransactionExports");
+      assertEquals(3, exports.size());
+      assertEquals(Map.of("ID", "1", "ITEM1", "A1", "GROUP_NAME", "GROUP-A"), exports.get(0));
+      assertEquals(Map.of("ID", "2", "ITEM1", " A4", "GROUP_NAME", " A4"), exports.get(1));
+      assertEquals(Map.of("ID", "3", "ITEM1", "B3", "GROUP_NAME", "GROUP-B"), exports.get(2));
+    }
+  }
+
+  /**
+   * 閉じるときのコミットに失敗しても例外となり、接続はプールに返されること
+   */
+  @Test
+  public void testBatchRecordWriterCloseFailure() {
+    BatchRecordWriter writer = new BatchRecordWriter(sqlSessionFactory, "T_TRANSACTION_EXPORT", List.of("ID"), 10);
+    writer.accept(Map.of("ID", "1"));
+    writer.accept(Map.of("ID", "1"));
+    assertThrows(PersistenceException.class, writer::close);
+    assertEquals(0, MeteredDataSource.of(sqlSessionFactory).orElseThrow().activeConnections());
+  }
+
+  /**
+   * 識別子として正しくないテーブル名は例外となること
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testBatchRecordWriterRejectsInvalidTable() {
+    new BatchRecordWriter(sqlSessionFactory, "T_TRANSACTION_EXPORT; DROP TABLE users", List.of("ID"), 1);
+  }
+
   @Test
   public void testSelectAllFromCommonCodeView() {
     try (SqlSession session = sqlSessionFactory.openSession()) {
@@ -229,6 +487,57 @@ public class MyBatisTest {
     }
   }
 
+  /**
+   * 共通コードをハッシュで参照するキャッシュ
+   */
+  @Test
+  public void testCommonCodeCache() throws Exception {
+    CommonCodeCache commonCodes = new CommonCodeCache(sqlSessionFactory, 10);
+
+    // 1件ずつ取得（見つからないハッシュもキャッシュする）
+    assertEquals("abc", commonCodes.get("abc").get("説明"));
+    assertEquals("def", commonCodes.getByHash(Util.getSHA256Hash.apply("def")).get("説明"));
+    assertEquals(null, commonCodes.get("def1"));
+    assertEquals(3, commonCodes.size());
+    // キャッシュした共通コードはハッシュの列を持たない
+    assertFalse(commonCodes.get("abc").containsKey(CommonCodeCache.HASH_COLUMN));
+
+    // まとめて取得（見つからない入力は含まない）
+    CommonCodeCache batch = new CommonCodeCache(sqlSessionFactory, 10);
+    Map<String, Map<String, Object>> found = batch.getAll(List.of("def", "xyz", "abc", "def"));
+    assertEquals(List.of("def", "abc"), new ArrayList<>(found.keySet()));
+    assertEquals(1, found.get("abc").get("共通コード"));
+    assertFalse(found.get("abc").containsKey(CommonCodeCache.HASH_COLUMN));
+    assertEquals(3, batch.size());
+
+    // 事前に読み込む（最大件数を超えた分は古いものから削除される）
+    CommonCodeCache small = new CommonCodeCache(sqlSessionFactory, 1);
+    assertEquals(2, small.preload());
+    assertEquals(1, small.size());
+    CommonCodeCache preloaded = new CommonCodeCache(sqlSessionFactory, 10);
+    preloaded.preload();
+    assertFalse(preloaded.get("abc").containsKey(CommonCodeCache.HASH_COLUMN));
+    assertEquals(2, preloaded.size());
+
+    // ハッシュがNULLの行はキャッシュしない
+    // 見つからなかったハッシュは覚えておく時間が過ぎるまで検索しない
+    CommonCodeCache remembering = new CommonCodeCache(sqlSessionFactory, 10);
+    CommonCodeCache forgetting = new CommonCodeCache(sqlSessionFactory, 10, 10, Duration.ZERO);
+    assertEquals(null, remembering.get("ghi"));
+    assertEquals(null, forgetting.get("ghi"));
+    try (SqlSession session = sqlSessionFactory.openSession(true);
+        Statement statement = session.getConnection().createStatement()) {
+      statement.execute("INSERT INTO T_COMMON_CODE VALUES (3, NULL, 'null')");
+      statement.execute("INSERT INTO T_COMMON_CODE VALUES (4, '" + Util.getSHA256Hash.apply("ghi") + "', 'ghi')");
+    }
+    assertEquals(null, remembering.get("ghi"));
+    assertEquals("ghi", forgetting.get("ghi").get("説明"));
+    assertEquals(3, remembering.preload());
+    assertEquals("ghi", remembering.get("ghi").get("説明"));
+    assertThrows(IllegalArgumentException.class,
+        () -> new CommonCodeCache(sqlSessionFactory, 10, 10, Duration.ofSeconds(-1)));
+  }
+
   /**
    * 条件に基づいてトランザクションを検索する
    * <foreach collection="conditions" item="condition" separator="AND">のテスト
@@ -264,4 +573,138 @@ public class MyBatisTest {
       });
     }
   }
+
+  /**
+   * パーティションに分割して並列に読み込んでも、findTransactionByConditionsと同じレコードが得られること
+   */
+  @Test
+  public void testFindTransactionByConditionsPartitioned() throws Exception {
+    List<Map<String, String>> conditions = List.of(Map.of("columnName", "ITEM1", "value", "A%"));
+    List<Map<String, String>> expected;
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      // パーティションに分かれるようにレコードを追加する
+      for (int i = 10; i < 60; i++) {
+        session.insert("org.example.Mapper.insertRecord", Map.of("table", "T_TRANSACTION",
+            "columns", List.of("ID", "ITEM1"), "values", List.of(String.valueOf(i), (i % 3 == 0 ? "B" : "A") + i)));
+      }
+      session.commit();
+      expected = session.selectList("org.example.Mapper.findTransactionByConditions",
+          Map.of("conditions", conditions));
+    }
+    List<String> expectedIds = expected.stream().map(record -> record.get("ID")).sorted()
+        .collect(Collectors.toList());
+
+    // 並列数はコネクションプールの最大数（既定の10）を超えない
+    assertEquals(10, new PartitionedTransactionExtractor(sqlSessionFactory, 100).parallelism());
+
+    PartitionedTransactionExtractor extractor = new PartitionedTransactionExtractor(sqlSessionFactory, 4);
+    for (PartitionedTransactionExtractor.Strategy strategy : PartitionedTransactionExtractor.Strategy.values()) {
+      for (boolean ordered : new boolean[] { true, false }) {
+        List<String> ids = new ArrayList<>();
+        long count = extractor.extract(conditions, strategy, 5, ordered, record -> ids.add(record.get("ID")));
+        assertEquals(expectedIds.size(), count);
+        if (strategy == PartitionedTransactionExtractor.Strategy.RANGE && ordered) {
+          // 範囲で分割して順序を保つ場合は、全体がIDの順となる
+          assertEquals(expectedIds, ids);
+        } else {
+          Collections.sort(ids);
+          assertEquals(expectedIds, ids);
+        }
+      }
+    }
+
+    // columnNameかvalueがnullの条件は無視する
+    List<Map<String, String>> withNulls = new ArrayList<>(conditions);
+    Map<String, String> nullColumnName = new HashMap<>();
+    nullColumnName.put("columnName", null);
+    nullColumnName.put("value", "x");
+    withNulls.add(nullColumnName);
+    Map<String, String> nullValue = new HashMap<>();
+    nullValue.put("columnName", "ITEM2");
+    nullValue.put("value", null);
+    withNulls.add(nullValue);
+    assertEquals(expectedIds.size(), extractor.extract(withNulls, PartitionedTransactionExtractor.Strategy.RANGE, 5,
+        true, record -> {
+        }));
+  }
+
+  /**
+   * mybatis-config.xmlのデータソースでコネクションの取得が計測されること
+   */
+  @Test
+  public void testPoolMetrics() throws Exception {
+    MeteredDataSource pool = MeteredDataSource.of(sqlSessionFactory).orElseThrow();
+    assertEquals(10, DataSources.maxActiveConnections(sqlSessionFactory));
+    long checkouts = pool.checkouts();
+    long waits = pool.waitTime().count();
+
+    new PartitionedTransactionExtractor(sqlSessionFactory, 4).extract(List.of(),
+        PartitionedTransactionExtractor.Strategy.HASH, 4, false, record -> {
+        });
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      session.selectList("org.example.Mapper.selectAllUsers");
+      assertEquals(1, pool.activeConnections());
+    }
+    assertEquals(0, pool.activeConnections());
+
+    // パーティションごとに1回と、最後のselectAllUsersで1回
+    assertEquals(checkouts + 5, pool.checkouts());
+    assertEquals(waits + 5, pool.waitTime().count());
+    Map<String, Number> snapshot = pool.snapshot();
+    assertEquals(pool.checkouts(), snapshot.get("checkouts").longValue());
+    assertEquals(10, snapshot.get("maxActiveConnections").intValue());
+    assertTrue(snapshot.get("waitP50Micros").longValue() <= snapshot.get("waitMaxMicros").longValue());
+  }
+
+  /**
+   * TransactionFinderで検索してもfindTransactionByConditionsと同じレコードが得られ、
+   * 条件の順序が違っても同じ形として扱われること
+   */
+  @Test
+  public void testFindTransactionByConditionsWithFinder() {
+    List<Map<String, String>> conditions = List.of(
+        Map.of("columnName", "ITEM2", "value", "value%"),
+        Map.of("columnName", "ITEM1", "value", "A%"));
+    try (SqlSession session = sqlSessionFactory.openSession();
+        TransactionFinder finder = new TransactionFinder(sqlSessionFactory)) {
+      Comparator<Map<String, String>> byId = Comparator.comparing(record -> record.get("ID"));
+      List<Map<String, String>> expected = new ArrayList<>(session.selectList(
+          "org.example.Mapper.findTransactionByConditions", Map.of("conditions", conditions)));
+      expected.sort(byId);
+      assertEquals(2, expected.size());
+
+      for (int i = 0; i < 3; i++) {
+        List<Map<String, String>> records = new ArrayList<>(finder.find(conditions));
+        records.sort(byId);
+        assertEquals(expected, records);
+      }
+      List<Map<String, String>> reversed = new ArrayList<>(conditions);
+      Collections.reverse(reversed);
+      assertEquals(2, finder.find(reversed).size());
+      assertEquals(1, finder.shapeCount());
+
+      assertEquals(1, finder.find(List.of(Map.of("columnName", "ITEM1", "value", "B%"))).size());
+      assertEquals(3, finder.find(List.of()).size());
+      assertEquals(3, finder.shapeCount());
+
+      // 形が増えても登録する文は1つだけ
+      long registered = session.getConfiguration().getMappedStatementNames().stream()
+          .filter(name -> name.startsWith(TransactionFinder.FIND_TRANSACTION_BY_CONDITIONS + "#"))
+          .count();
+      assertEquals(1, registered);
+
+      // 列名は検証する
+      assertThrows(IllegalArgumentException.class,
+          () -> finder.find(List.of(Map.of("columnName", "ITEM1 OR 1=1 --", "value", "%"))));
+
+      // 開いたままのPreparedStatementが上限を超える場合は閉じてから作り直す
+      // （同じ列の条件をk個並べてk通りの形にする）
+      List<Map<String, String>> repeated = new ArrayList<>();
+      for (int k = 1; k <= TransactionFinder.MAX_OPEN_STATEMENTS + 1; k++) {
+        repeated.add(Map.of("columnName", "ITEM1", "value", "A%"));
+        assertEquals(2, finder.find(repeated).size());
+      }
+      assertTrue(finder.shapeCount() <= TransactionFinder.MAX_OPEN_STATEMENTS);
+    }
+  }
 }
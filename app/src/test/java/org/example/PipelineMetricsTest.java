@@ -0,0 +1,124 @@
+package org.example;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class PipelineMetricsTest {
+  /**
+   * 段ごとの行数と件数が数えられ、結果がUtilの関数と同じになること
+   */
+  @Test
+  public void testStageCounters() {
+    PipelineMetrics metrics = new PipelineMetrics(1);
+    Map<String, String> groupMaster = Map.of("A", "G1");
+
+    List<String> lines = Stream.of(record("A", "1"), record("B", "x"), record(null, "2"))
+        .map(metrics.trimSpacesFromColumns())
+        .map(metrics.transformValues(Map.of("ITEM2", "STATUS"), new String[] { "1|3", "@" }))
+        .map(metrics.clearValuesByConditions(Map.of("ITEM2", "^[0-9]+$")))
+        .map(metrics.addGroupColumn(groupMaster))
+        .map(metrics.convertToCommaSeparatedRecord(List.of("ITEM1", "ITEM2", "GROUP")))
+        .collect(Collectors.toList());
+
+    List<String> expected = Stream.of(record("A", "1"), record("B", "x"), record(null, "2"))
+        .map(Util.trimSpacesFromColumns)
+        .map(Util.transformValues.apply(Map.of("ITEM2", "STATUS")).apply(new String[] { "1|3", "@" }))
+        .map(Util.clearValuesByConditions.apply(Map.of("ITEM2", "^[0-9]+$")))
+        .map(Util.addGroupColumn.apply(groupMaster))
+        .map(Util.convertToCommaSeparatedRecord.apply(List.of("ITEM1", "ITEM2", "GROUP")))
+        .collect(Collectors.toList());
+    assertEquals(expected, lines);
+
+    Map<String, Map<String, Number>> snapshot = metrics.snapshot();
+    assertEquals(List.of("trimSpacesFromColumns", "transformValues", "clearValuesByConditions", "addGroupColumn",
+        "convertToCommaSeparatedRecord"), List.copyOf(snapshot.keySet()));
+    for (Map<String, Number> stage : snapshot.values()) {
+      assertEquals(3L, stage.get("rowsIn"));
+      assertEquals(3L, stage.get("rowsOut"));
+      // 割合が1の場合はすべての呼び出しを計測する
+      assertEquals(3L, stage.get("sampledCalls"));
+    }
+    // STATUSが1の行だけ置き換える
+    assertEquals(1, metrics.stage("transformValues").count(PipelineMetrics.REPLACED));
+    // 置き換え後の"@"と"x"は数字ではないので、"2"だけ消す
+    assertEquals(1, metrics.stage("clearValuesByConditions").count(PipelineMetrics.CLEARED));
+    // "B"はマスタになく、空文字列のITEM1もマスタにない
+    assertEquals(2, metrics.stage("addGroupColumn").count(PipelineMetrics.GROUP_MISSES));
+  }
+
+  /**
+   * 例外で終わった行はrowsOutに数えないこと
+   */
+  @Test
+  public void testFailedRow() {
+    PipelineMetrics metrics = new PipelineMetrics();
+    Function<String, Integer> parse = metrics.instrument("parse", Integer::parseInt);
+    assertEquals(Integer.valueOf(1), parse.apply("1"));
+    assertThrows(NumberFormatException.class, () -> parse.apply("x"));
+    assertEquals(2, metrics.stage("parse").rowsIn());
+    assertEquals(1, metrics.stage("parse").rowsOut());
+    assertThrows(IllegalArgumentException.class, () -> new PipelineMetrics(0));
+  }
+
+  /**
+   * コンソールとJSONに段の名前と計測値が出力されること
+   */
+  @Test
+  public void testExporters() throws Exception {
+    PipelineMetrics metrics = new PipelineMetrics();
+    metrics.trimSpacesFromColumns().apply(record("A ", "1"));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    metrics.report(PipelineMetrics.console(new PrintStream(out, true, StandardCharsets.UTF_8)));
+    assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("trimSpacesFromColumns rowsIn=1 rowsOut=1 "));
+
+    StringWriter json = new StringWriter();
+    metrics.report(PipelineMetrics.json(json));
+    assertTrue(json.toString().contains("\"trimSpacesFromColumns\""));
+    assertTrue(json.toString().contains("\"rowsOut\": 1"));
+  }
+
+  /**
+   * ストリーミング処理で変換の段の行数と置き換えた値の数が数えられること
+   */
+  @Test
+  public void testProcessCsvStreaming() throws Exception {
+    CsvParse.Config config = CsvParse.loadConfig("config.json");
+    String input = "項目A,項目B,項目C,状態-項目A,状態-項目B,状態-項目C\n"
+        + "value1,value2,value3,1,2,3\n"
+        + "value4,value5,value6,3,1,2\n";
+    StringWriter writer = new StringWriter();
+    PipelineMetrics metrics = new PipelineMetrics(1);
+    CsvParse.processCsvStreaming(new StringReader(input), writer, config, metrics);
+
+    StringWriter expected = new StringWriter();
+    CsvParse.processCsvStreaming(new StringReader(input), expected, config);
+    assertEquals(expected.toString(), writer.toString());
+    PipelineMetrics.StageMetrics stage = metrics.stage("transformValues");
+    assertEquals(2, stage.rowsIn());
+    assertEquals(2, stage.rowsOut());
+    // 1行目の項目Aと2行目の項目A、項目Bを置き換える
+    assertEquals(3, stage.count(PipelineMetrics.REPLACED));
+  }
+
+  private static Map<String, String> record(String item1, String status) {
+    Map<String, String> record = new HashMap<>();
+    record.put("ITEM1", item1);
+    record.put("ITEM2", status);
+    record.put("STATUS", status);
+    return record;
+  }
+}
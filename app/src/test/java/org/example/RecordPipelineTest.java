@@ -0,0 +1,111 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class RecordPipelineTest {
+  // グループ化マスタ
+  private static final Map<String, String> GROUP_MASTER = Map.of(
+      "A1", "GROUP-A",
+      "A2", "GROUP-A",
+      "B3", "GROUP-B",
+      "B3 ", "GROUP-B-SPACE");
+
+  // トランザクションデータ
+  private static final List<Map<String, String>> TRANSACTIONS = List.of(
+      Map.of("ID", "1", "ITEM1", "A1 ", "ITEM2", " value2 ", "ITEM3", " value3 "),
+      Map.of("ID", "2", "ITEM1", " A4", "ITEM2", " value5 ", "ITEM3", " value6 "),
+      Map.of("ID", "3", "ITEM1", "B3 ", "ITEM2", " value8 ", "ITEM3", " value9 "));
+
+  /**
+   * MyBatisTest.testProcessTransactionsと同じ連結で同じ結果になること
+   */
+  @Test
+  public void testTrimGroupFilter_SameAsUtil() {
+    Set<String> filterSet = Set.of("ID", "ITEM1", "GROUP");
+    List<String> columnOrder = List.of("ID", "ITEM1", "GROUP");
+
+    List<String> expected = apply(TRANSACTIONS,
+        Util.trimSpacesFromColumns
+            .andThen(Util.addGroupColumn.apply(GROUP_MASTER))
+            .andThen(Util.filterRecordByColumns.apply(filterSet))
+            .andThen(Util.convertToCommaSeparatedRecord.apply(columnOrder)));
+
+    List<String> actual = apply(TRANSACTIONS, RecordPipeline.builder()
+        .trimSpacesFromColumns()
+        .addGroupColumn(GROUP_MASTER)
+        .filterRecordByColumns(filterSet)
+        .toCommaSeparatedRecord(columnOrder));
+
+    assertEquals(expected, actual);
+    assertEquals("\"1\",\"A1\",\"GROUP-A\"", actual.get(0));
+    assertEquals("\"2\",\" A4\",\" A4\"", actual.get(1));
+    assertEquals("\"3\",\"B3\",\"GROUP-B\"", actual.get(2));
+  }
+
+  /**
+   * 段の順序を変えても、Utilの関数を同じ順に連結した結果と同じになること
+   */
+  @Test
+  public void testOtherOrders_SameAsUtil() {
+    Set<String> filterSet = Set.of("ID", "ITEM2", "GROUP");
+    List<String> columnOrder = List.of("ID", "ITEM1", "ITEM2", "GROUP", "ITEM9");
+
+    // GROUPを追加してからトリムする
+    assertEquals(
+        apply(TRANSACTIONS, Util.addGroupColumn.apply(GROUP_MASTER)
+            .andThen(Util.trimSpacesFromColumns)
+            .andThen(Util.filterRecordByColumns.apply(filterSet))
+            .andThen(Util.convertToCommaSeparatedRecord.apply(columnOrder))),
+        apply(TRANSACTIONS, RecordPipeline.builder()
+            .addGroupColumn(GROUP_MASTER)
+            .trimSpacesFromColumns()
+            .filterRecordByColumns(filterSet)
+            .toCommaSeparatedRecord(columnOrder)));
+
+    // フィルタしてからトリムする
+    assertEquals(
+        apply(TRANSACTIONS, Util.filterRecordByColumns.apply(filterSet)
+            .andThen(Util.trimSpacesFromColumns)
+            .andThen(Util.convertToCommaSeparatedRecord.apply(columnOrder))),
+        apply(TRANSACTIONS, RecordPipeline.builder()
+            .filterRecordByColumns(filterSet)
+            .trimSpacesFromColumns()
+            .toCommaSeparatedRecord(columnOrder)));
+
+    // 段がない場合
+    assertEquals(
+        apply(TRANSACTIONS, Util.convertToCommaSeparatedRecord.apply(columnOrder)),
+        apply(TRANSACTIONS, RecordPipeline.builder().toCommaSeparatedRecord(columnOrder)));
+  }
+
+  /**
+   * null値はトリムで空文字列になること
+   */
+  @Test
+  public void testNullValues() {
+    Map<String, String> transaction = new HashMap<>();
+    transaction.put("ID", "1");
+    transaction.put("ITEM1", null);
+    List<String> columnOrder = List.of("ID", "ITEM1");
+
+    assertEquals(Util.convertToCommaSeparatedRecord.apply(columnOrder).apply(transaction),
+        RecordPipeline.builder().toCommaSeparatedRecord(columnOrder).apply(transaction));
+    assertEquals(Util.trimSpacesFromColumns.andThen(Util.convertToCommaSeparatedRecord.apply(columnOrder))
+        .apply(transaction),
+        RecordPipeline.builder().trimSpacesFromColumns().toCommaSeparatedRecord(columnOrder).apply(transaction));
+  }
+
+  private static List<String> apply(List<Map<String, String>> transactions,
+      Function<Map<String, String>, String> pipeline) {
+    return transactions.stream().map(pipeline).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,158 @@
+package org.example;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class RecordUtilTest {
+  // サンプルの valuePairs
+  private static final Map<String, String> VALUE_PAIRS = Map.of("ITEM2", "STAT-ITEM2");
+
+  // サンプルの conditions（transformValues用）
+  private static final String[] TRANSFORM_CONDITIONS = new String[] { "1|3", "@" };
+
+  // サンプルの conditions（clearValuesByConditions用）
+  private static final Map<String, String> CLEAR_CONDITIONS = Map.of(
+      "ITEM1", "^A.*", // ITEM1が"A"で始まる場合
+      "ITEM2", "^va.+$" // ITEM2が"va"で始まり1文字以上続く場合
+  );
+
+  // グループ化マスタ
+  private static final Map<String, String> GROUP_MASTER = Map.of(
+      "A1", "GROUP-A",
+      "B3", "GROUP-B");
+
+  // トランザクションデータ
+  private static final List<Map<String, String>> TRANSACTIONS = List.of(
+      Map.of("ID", "1", "ITEM1", "A1 ", "ITEM2", "value2", "STAT-ITEM2", "3"),
+      Map.of("ID", "2", "ITEM1", "A4", "ITEM2", "value5", "STAT-ITEM2", "1"),
+      Map.of("ID", "3", "ITEM1", "B3", "ITEM2", " v8 ", "STAT-ITEM2", "A"),
+      Map.of("ID", "4", "ITEM1", "C9 ", "ITEM2", "other ", "STAT-ITEM2", "2"));
+
+  /**
+   * Utilの関数を連結した結果と同じになること
+   */
+  @Test
+  public void testPipeline_SameAsUtil() {
+    Set<String> filterSet = Set.of("ID", "ITEM1", "ITEM2", "GROUP");
+    List<String> columnOrder = List.of("ID", "ITEM1", "ITEM2", "GROUP", "ITEM9");
+
+    List<String> expected = TRANSACTIONS.stream()
+        .map(Util.trimSpacesFromColumns)
+        .map(Util.transformValues.apply(VALUE_PAIRS).apply(TRANSFORM_CONDITIONS))
+        .map(Util.clearValuesByConditions.apply(CLEAR_CONDITIONS))
+        .map(Util.addGroupColumn.apply(GROUP_MASTER))
+        .map(Util.filterRecordByColumns.apply(filterSet))
+        .map(Util.convertToCommaSeparatedRecord.apply(columnOrder))
+        .collect(Collectors.toList());
+
+    RecordSchema schema = RecordSchema.of("ID", "ITEM1", "ITEM2", "STAT-ITEM2");
+    List<String> actual = TRANSACTIONS.stream()
+        .map(transaction -> Record.fromMap(schema, transaction))
+        .map(RecordUtil.trimSpacesFromColumns)
+        .map(RecordUtil.transformValues.apply(VALUE_PAIRS).apply(TRANSFORM_CONDITIONS))
+        .map(RecordUtil.clearValuesByConditions.apply(CLEAR_CONDITIONS))
+        .map(RecordUtil.addGroupColumn.apply(GROUP_MASTER))
+        .map(RecordUtil.filterRecordByColumns.apply(filterSet))
+        .map(RecordUtil.convertToCommaSeparatedRecord.apply(columnOrder))
+        .collect(Collectors.toList());
+
+    assertEquals(expected, actual);
+  }
+
+  /**
+   * 各関数の結果をMapに戻すとUtilの関数の結果と一致すること
+   */
+  @Test
+  public void testEachFunction_SameAsUtil() {
+    for (Map<String, String> transaction : TRANSACTIONS) {
+      Record record = Record.fromMap(transaction);
+
+      assertEquals(Util.trimSpacesFromColumns.apply(transaction),
+          RecordUtil.trimSpacesFromColumns.apply(record).toMap());
+      assertEquals(Util.transformValues.apply(VALUE_PAIRS).apply(TRANSFORM_CONDITIONS).apply(transaction),
+          RecordUtil.transformValues.apply(VALUE_PAIRS).apply(TRANSFORM_CONDITIONS).apply(record).toMap());
+      assertEquals(Util.clearValuesByConditions.apply(CLEAR_CONDITIONS).apply(transaction),
+          RecordUtil.clearValuesByConditions.apply(CLEAR_CONDITIONS).apply(record).toMap());
+      assertEquals(Util.addGroupColumn.apply(GROUP_MASTER).apply(transaction),
+          RecordUtil.addGroupColumn.apply(GROUP_MASTER).apply(record).toMap());
+      assertEquals(Util.filterRecordByColumns.apply(Set.of("ID", "ITEM2")).apply(transaction),
+          RecordUtil.filterRecordByColumns.apply(Set.of("ID", "ITEM2")).apply(record).toMap());
+    }
+  }
+
+  /**
+   * null値は空文字列に置き換えられ、トリム不要の場合は同じレコードが返ること
+   */
+  @Test
+  public void testTrimSpacesFromColumns() {
+    Map<String, String> map = new HashMap<>();
+    map.put("ITEM1", null);
+    map.put("ITEM2", "value2 ");
+    Record trimmed = RecordUtil.trimSpacesFromColumns.apply(Record.fromMap(map));
+
+    assertEquals("", trimmed.get("ITEM1"));
+    assertEquals("value2", trimmed.get("ITEM2"));
+    assertSame(trimmed, RecordUtil.trimSpacesFromColumns.apply(trimmed));
+  }
+
+  /**
+   * 同じカラム名の並びのスキーマは同じインスタンスになること
+   */
+  @Test
+  public void testSchemaIsInterned() {
+    RecordSchema schema = RecordSchema.of(List.of("ID", "ITEM1"));
+
+    assertSame(schema, RecordSchema.of("ID", "ITEM1"));
+    assertSame(schema, RecordSchema.of("ID").append("ITEM1"));
+    assertSame(schema, schema.append("ID"));
+    assertEquals(1, schema.indexOf("ITEM1"));
+    assertEquals(-1, schema.indexOf("ITEM2"));
+    assertNull(new Record(schema, new String[] { "1", "A1" }).get("ITEM2"));
+  }
+
+  /**
+   * 参照されなくなったスキーマはインターンしたMapから削除されること
+   */
+  @Test
+  public void testUnreferencedSchemaIsCollected() throws Exception {
+    RecordSchema kept = RecordSchema.of("KEPT", "ITEM1");
+    int before = RecordSchema.internedCount();
+    for (int i = 0; i < 10_000; i++) {
+      RecordSchema.of("ID", "COLUMN" + i);
+    }
+    for (int i = 0; i < 50 && RecordSchema.internedCount() >= before + 10_000; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertTrue(RecordSchema.internedCount() < before + 10_000);
+    assertSame(kept, RecordSchema.of("KEPT", "ITEM1"));
+  }
+
+  /**
+   * スキーマごとのキャッシュは参照されなくなったスキーマを保持し続けないこと
+   */
+  @Test
+  public void testSchemaCacheDoesNotRetainSchemas() throws Exception {
+    SchemaCache<int[]> cache = new SchemaCache<>(schema -> new int[] { schema.indexOf("ITEM1") });
+    Function<Record, Record> filter = RecordUtil.filterRecordByColumns.apply(Set.of("ITEM1"));
+    for (int i = 0; i < 10_000; i++) {
+      Record record = new Record(RecordSchema.of("ITEM1", "CACHED" + i), new String[] { "A", "B" });
+      assertEquals(0, cache.get(record.getSchema())[0]);
+      assertEquals("A", filter.apply(record).get("ITEM1"));
+    }
+    for (int i = 0; i < 50 && cache.size() > 1; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    // 直前のスキーマだけは残る
+    assertTrue(cache.size() < 10_000);
+  }
+}
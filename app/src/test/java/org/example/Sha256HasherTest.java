@@ -0,0 +1,84 @@
+package org.example;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class Sha256HasherTest {
+  /**
+   * 既知のハッシュ値と一致すること（UTF-8でバイト列に変換すること）
+   */
+  @Test
+  public void testHash() {
+    assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", Sha256Hasher.hash(""));
+    assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", Sha256Hasher.hash("abc"));
+    assertEquals("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08", Util.getSHA256Hash.apply("test"));
+    assertEquals("e38182", Sha256Hasher.toHex("あ".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(Sha256Hasher.toHex(Sha256Hasher.hashBytes("日本語")), Sha256Hasher.hash("日本語"));
+    assertEquals(Sha256Hasher.HASH_LENGTH, Sha256Hasher.hashBytes("abc").length);
+  }
+
+  /**
+   * まとめてハッシュした結果が1件ずつハッシュした結果と一致すること
+   */
+  @Test
+  public void testHashAll() {
+    String[] inputs = { "abc", null, "", "def", "abc", "日本語" };
+    String[] hashes = Sha256Hasher.hashAll(inputs);
+
+    assertEquals(inputs.length, hashes.length);
+    for (int i = 0; i < inputs.length; i++) {
+      assertEquals(inputs[i] != null ? Sha256Hasher.hash(inputs[i]) : null, hashes[i]);
+    }
+  }
+
+  /**
+   * メモ化した関数は同じ入力に対して同じインスタンスを返すこと
+   */
+  @Test
+  public void testMemoized() {
+    Function<String, String> hash = Sha256Hasher.memoized(2);
+
+    String abc = hash.apply("abc");
+    assertEquals(Sha256Hasher.hash("abc"), abc);
+    assertSame(abc, hash.apply("abc"));
+  }
+
+  /**
+   * 最大件数を超えると最も長く参照されていないエントリが削除されること
+   */
+  @Test
+  public void testLruCache() {
+    LruCache<String, Integer> cache = new LruCache<>(2);
+    cache.put("a", 1);
+    cache.put("b", 2);
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    cache.put("c", 3);
+
+    assertEquals(2, cache.size());
+    assertNull(cache.get("b"));
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    assertEquals(Integer.valueOf(3), cache.computeIfAbsent("c", key -> 4));
+    assertEquals(Integer.valueOf(5), cache.computeIfAbsent("d", key -> 5));
+    assertNull(cache.get("a"));
+  }
+
+  /**
+   * 複数のスレッドから同時にハッシュしても正しい値になること
+   */
+  @Test
+  public void testConcurrentHash() {
+    String expected = Sha256Hasher.hash("abc");
+    List<String> hashes = IntStream.range(0, 10000).parallel()
+        .mapToObj(i -> Sha256Hasher.hash("abc"))
+        .collect(Collectors.toList());
+
+    assertTrue(hashes.stream().allMatch(expected::equals));
+  }
+}
@@ -46,6 +46,12 @@ CREATE TABLE T_TRANSACTION(
     ITEM9 VARCHAR(10),
     ITEM10 VARCHAR(10)
 );
+-- トランザクションのエクスポート先
+CREATE TABLE T_TRANSACTION_EXPORT(
+    ID VARCHAR(10) PRIMARY KEY,
+    ITEM1 VARCHAR(10),
+    GROUP_NAME VARCHAR(10)
+);
 -- カラムフィルタテーブル
 CREATE TABLE T_COLUMNS_FILTER(COLUMN_NAME VARCHAR(256) PRIMARY KEY);
 -- グループマスタ